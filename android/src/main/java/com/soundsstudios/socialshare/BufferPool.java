@@ -0,0 +1,181 @@
+package com.soundsstudios.socialshare;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Plugin-wide pool of direct ByteBuffers for the copy, export and remux I/O paths.
+// Buffers come in power-of-two size classes from 4 KB to 8 MB, and each class
+// has a small lock-free free list. The free lists are shared rather than
+// thread-local because most work runs on short-lived executor threads. What
+// the pool retains is capped by RETAINED_BUDGET; anything over the budget or
+// the largest class is left to the GC. With leak detection on (debuggable
+// apps), a lease that is garbage collected without being closed is logged
+// together with the stack that acquired it.
+final class BufferPool {
+
+    static final int MIN_CLASS_SHIFT = 12;
+    static final int MAX_CLASS_SHIFT = 23;
+    static final int SLOTS_PER_CLASS = 4;
+    static final long RETAINED_BUDGET = 24L * 1024 * 1024;
+
+    private static final AtomicReferenceArray<ByteBuffer>[] FREE = newFreeLists();
+    private static final AtomicLong retainedBytes = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong leaks = new AtomicLong();
+
+    private static volatile boolean leakDetection = false;
+    private static final ReferenceQueue<Lease> collected = new ReferenceQueue<>();
+    private static final Set<LeakTracker> outstanding = Collections.newSetFromMap(
+            new ConcurrentHashMap<LeakTracker, Boolean>());
+
+    private BufferPool() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<ByteBuffer>[] newFreeLists() {
+        AtomicReferenceArray<ByteBuffer>[] lists = new AtomicReferenceArray[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new AtomicReferenceArray<>(SLOTS_PER_CLASS);
+        }
+        return lists;
+    }
+
+    static void setLeakDetection(boolean enabled) {
+        leakDetection = enabled;
+    }
+
+    // A cleared direct buffer with at least `size` bytes of capacity and its limit set to `size`
+    static Lease acquire(int size) {
+        if (leakDetection) {
+            reportLeaks();
+        }
+
+        int sizeClass = sizeClass(size);
+        ByteBuffer buffer = null;
+        if (sizeClass >= 0) {
+            AtomicReferenceArray<ByteBuffer> free = FREE[sizeClass];
+            for (int i = 0; i < SLOTS_PER_CLASS && buffer == null; i++) {
+                buffer = free.getAndSet(i, null);
+            }
+        }
+
+        if (buffer != null) {
+            hits.incrementAndGet();
+            retainedBytes.addAndGet(-buffer.capacity());
+        } else {
+            misses.incrementAndGet();
+            buffer = ByteBuffer.allocateDirect(sizeClass >= 0 ? 1 << (sizeClass + MIN_CLASS_SHIFT) : size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return new Lease(buffer);
+    }
+
+    static long hits() {
+        return hits.get();
+    }
+
+    static long misses() {
+        return misses.get();
+    }
+
+    static long leaks() {
+        return leaks.get();
+    }
+
+    static long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+    // Index of the smallest class that holds `size` bytes, or -1 when it's too large to pool
+    static int sizeClass(int size) {
+        int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+        return shift > MAX_CLASS_SHIFT ? -1 : shift - MIN_CLASS_SHIFT;
+    }
+
+    private static void recycle(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass < 0 || capacity != 1 << (sizeClass + MIN_CLASS_SHIFT)) {
+            return;
+        }
+        if (retainedBytes.addAndGet(capacity) > RETAINED_BUDGET) {
+            retainedBytes.addAndGet(-capacity);
+            return;
+        }
+        AtomicReferenceArray<ByteBuffer> free = FREE[sizeClass];
+        for (int i = 0; i < SLOTS_PER_CLASS; i++) {
+            if (free.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+        retainedBytes.addAndGet(-capacity);
+    }
+
+    private static void reportLeaks() {
+        LeakTracker tracker;
+        while ((tracker = (LeakTracker) collected.poll()) != null) {
+            if (outstanding.remove(tracker)) {
+                leaks.incrementAndGet();
+                Log.w("SocialShare", "❌ Pooled buffer of " + tracker.capacity + " bytes was never released",
+                        tracker.origin);
+            }
+        }
+    }
+
+    // Exclusive use of a pooled buffer until closed; use with try-with-resources
+    static final class Lease implements Closeable {
+        private ByteBuffer buffer;
+        private final LeakTracker tracker;
+
+        private Lease(ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (leakDetection) {
+                tracker = new LeakTracker(this, buffer.capacity());
+                outstanding.add(tracker);
+            } else {
+                tracker = null;
+            }
+        }
+
+        ByteBuffer buffer() {
+            if (buffer == null) {
+                throw new IllegalStateException("Buffer lease already released");
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            if (buffer == null) {
+                return;
+            }
+            if (tracker != null) {
+                outstanding.remove(tracker);
+            }
+            ByteBuffer released = buffer;
+            buffer = null;
+            recycle(released);
+        }
+    }
+
+    private static final class LeakTracker extends WeakReference<Lease> {
+        final int capacity;
+        final Throwable origin = new Throwable("Buffer acquired here");
+
+        LeakTracker(Lease lease, int capacity) {
+            super(lease, collected);
+            this.capacity = capacity;
+        }
+    }
+}
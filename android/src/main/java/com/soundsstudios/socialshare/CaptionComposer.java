@@ -0,0 +1,269 @@
+package com.soundsstudios.socialshare;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Builds share captions for each platform from their parts (title, text,
+// hashtags, url, ...) and keeps them inside the platform's length limit.
+// Lengths are measured in code points, or with X's weighting (URLs count as
+// 23, most non-Latin code points as 2) for Twitter. When a caption is too
+// long, trailing hashtags are dropped first, then the free text is cut with
+// an ellipsis; URLs, mentions and subreddits are never shortened.
+// Markers such as '#', "via @" and "r/" belong to their part, and separators
+// are whitespace only, so a caption whose text is empty still reads right.
+// Each part is measured once, the running total is updated as parts are
+// dropped or cut, and the caption is written into a single StringBuilder
+// sized to the exact output length.
+final class CaptionComposer {
+
+    enum Target {
+        TWITTER(280, true),
+        TIKTOK(2200, false),
+        FACEBOOK(63206, false),
+        WHATSAPP(65536, false),
+        // Telegram limits captions on media messages to 1024
+        TELEGRAM(1024, false),
+        LINKEDIN(3000, false),
+        REDDIT(40000, false),
+        SYSTEM(Integer.MAX_VALUE, false);
+
+        final int limit;
+        final boolean weighted;
+
+        Target(int limit, boolean weighted) {
+            this.limit = limit;
+            this.weighted = weighted;
+        }
+    }
+
+    private static final int KIND_TEXT = 0; // free text, may be truncated
+    private static final int KIND_HASHTAG = 1; // may be dropped
+    private static final int KIND_FIXED = 2; // kept verbatim
+    private static final int KIND_URL = 3; // kept verbatim, weighted as a t.co link on X
+
+    private static final int URL_WEIGHT = 23;
+    private static final String ELLIPSIS = "…";
+
+    private final Target target;
+    private final String[] separators;
+    private final String[] prefixes;
+    private final String[] values;
+    private final int[] kinds;
+    private final int[] weights;
+    private final int[] cuts; // char index to cut a KIND_TEXT value at, or -1 to keep it whole
+    private final boolean[] dropped;
+    private final Set<String> hashtags = new HashSet<>();
+    private int count = 0;
+
+    private CaptionComposer(Target target, int capacity) {
+        this.target = target;
+        this.separators = new String[capacity];
+        this.prefixes = new String[capacity];
+        this.values = new String[capacity];
+        this.kinds = new int[capacity];
+        this.weights = new int[capacity];
+        this.cuts = new int[capacity];
+        this.dropped = new boolean[capacity];
+    }
+
+    // Tweet: text #tag1 #tag2 via @user url
+    static String twitter(String text, String[] hashtags, String via, String url) {
+        return new CaptionComposer(Target.TWITTER, 3 + hashtags.length)
+                .add(KIND_TEXT, "", "", text)
+                .addHashtags(hashtags)
+                .add(KIND_FIXED, " ", "via @", via)
+                .add(KIND_URL, " ", "", url)
+                .build();
+    }
+
+    // TikTok caption: text #tag1 #tag2
+    static String tiktok(String text, String[] hashtags) {
+        return new CaptionComposer(Target.TIKTOK, 1 + hashtags.length)
+                .add(KIND_TEXT, "", "", text)
+                .addHashtags(hashtags)
+                .build();
+    }
+
+    // Facebook: text url #hashtag
+    static String facebook(String text, String url, String hashtag) {
+        return new CaptionComposer(Target.FACEBOOK, 3)
+                .add(KIND_TEXT, "", "", text)
+                .add(KIND_URL, " ", "", url)
+                .add(KIND_HASHTAG, " ", "", hashtag)
+                .build();
+    }
+
+    // Chat message: text followed by url, space separated (WhatsApp, system share) or on its own line (Telegram)
+    static String message(Target target, String text, String url) {
+        return new CaptionComposer(target, 2)
+                .add(KIND_TEXT, "", "", text)
+                .add(KIND_URL, target == Target.TELEGRAM ? "\n" : " ", "", url)
+                .build();
+    }
+
+    // Post: title, text, url and optional subreddit, one per line (LinkedIn, Reddit)
+    static String post(Target target, String title, String text, String url, String subreddit) {
+        return new CaptionComposer(target, 4)
+                .add(KIND_TEXT, "", "", title)
+                .add(KIND_TEXT, "\n", "", text)
+                .add(KIND_URL, "\n", "", url)
+                .add(KIND_FIXED, "\n", "r/", subreddit)
+                .build();
+    }
+
+    private CaptionComposer add(int kind, String separator, String prefix, String value) {
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        separators[count] = separator;
+        prefixes[count] = prefix;
+        values[count] = value;
+        kinds[count] = kind;
+        weights[count] = weigh(prefix, 0, prefix.length())
+                + (kind == KIND_URL && target.weighted ? URL_WEIGHT : weigh(value, 0, value.length()));
+        cuts[count] = -1;
+        count++;
+        return this;
+    }
+
+    // Adds each hashtag once, ignoring case and any leading '#'
+    private CaptionComposer addHashtags(String[] tags) {
+        for (String hashtag : tags) {
+            if (hashtag == null) {
+                continue;
+            }
+            String tag = hashtag.trim();
+            if (tag.startsWith("#")) {
+                tag = tag.substring(1).trim();
+            }
+            if (!tag.isEmpty() && hashtags.add(tag.toLowerCase(Locale.ROOT))) {
+                add(KIND_HASHTAG, " ", "#", tag);
+            }
+        }
+        return this;
+    }
+
+    private String build() {
+        // Every kept part is counted with its separator; the first kept part's separator is never written,
+        // so it is subtracted when the total is read. `first` only ever moves forward as parts are dropped.
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += separatorWeight(i) + weights[i];
+        }
+        int first = 0;
+        int ellipsis = weigh(ELLIPSIS, 0, ELLIPSIS.length());
+
+        // Drop hashtags from the end until the caption fits
+        for (int i = count - 1; i >= 0 && total - separatorWeight(first) > target.limit; i--) {
+            if (kinds[i] == KIND_HASHTAG) {
+                dropped[i] = true;
+                total -= separatorWeight(i) + weights[i];
+                first = firstKept(first);
+            }
+        }
+
+        // Then shorten free text, starting with the last text part (body before title)
+        for (int i = count - 1; i >= 0 && total - separatorWeight(first) > target.limit; i--) {
+            if (kinds[i] == KIND_TEXT && !dropped[i]) {
+                int keep = weights[i] - (total - separatorWeight(first) - target.limit) - ellipsis;
+                total -= weights[i];
+                if (keep <= 0) {
+                    dropped[i] = true;
+                    total -= separatorWeight(i);
+                    first = firstKept(first);
+                } else {
+                    cuts[i] = cutIndex(values[i], keep);
+                    weights[i] = weigh(values[i], 0, cuts[i]) + ellipsis;
+                    total += weights[i];
+                }
+            }
+        }
+
+        StringBuilder caption = new StringBuilder(outputLength());
+        for (int i = 0; i < count; i++) {
+            if (dropped[i]) {
+                continue;
+            }
+            if (caption.length() > 0) {
+                caption.append(separators[i]);
+            }
+            caption.append(prefixes[i]);
+            if (cuts[i] >= 0) {
+                caption.append(values[i], 0, cuts[i]).append(ELLIPSIS);
+            } else {
+                caption.append(values[i]);
+            }
+        }
+        return caption.toString();
+    }
+
+    private int firstKept(int from) {
+        int index = from;
+        while (index < count && dropped[index]) {
+            index++;
+        }
+        return index;
+    }
+
+    private int separatorWeight(int index) {
+        return index < count ? weigh(separators[index], 0, separators[index].length()) : 0;
+    }
+
+    private int outputLength() {
+        int length = 0;
+        boolean first = true;
+        for (int i = 0; i < count; i++) {
+            if (dropped[i]) {
+                continue;
+            }
+            if (!first) {
+                length += separators[i].length();
+            }
+            length += prefixes[i].length() + (cuts[i] >= 0 ? cuts[i] + ELLIPSIS.length() : values[i].length());
+            first = false;
+        }
+        return length;
+    }
+
+    // Largest char index whose prefix weighs at most budget, never splitting a surrogate pair
+    private int cutIndex(String value, int budget) {
+        int used = 0;
+        int index = 0;
+        while (index < value.length()) {
+            int codePoint = value.codePointAt(index);
+            int weight = weigh(codePoint);
+            if (used + weight > budget) {
+                break;
+            }
+            used += weight;
+            index += Character.charCount(codePoint);
+        }
+        return index;
+    }
+
+    private int weigh(String value, int start, int end) {
+        int weight = 0;
+        int index = start;
+        while (index < end) {
+            int codePoint = value.codePointAt(index);
+            weight += weigh(codePoint);
+            index += Character.charCount(codePoint);
+        }
+        return weight;
+    }
+
+    // X counts Latin, punctuation and general symbols as 1 and everything else (CJK, emoji, ...) as 2
+    private int weigh(int codePoint) {
+        if (!target.weighted) {
+            return 1;
+        }
+        if (codePoint <= 4351
+                || (codePoint >= 8192 && codePoint <= 8205)
+                || (codePoint >= 8208 && codePoint <= 8223)
+                || (codePoint >= 8242 && codePoint <= 8247)) {
+            return 1;
+        }
+        return 2;
+    }
+}
@@ -0,0 +1,235 @@
+package com.soundsstudios.socialshare;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Short-lived foreground service that runs encode/export jobs while the user
+// is in another app. Being in the foreground keeps the process from being
+// cached or killed mid-export, and the notification shows progress.
+// Jobs run one at a time and the service stops itself once the queue drains.
+public class ExportService extends Service {
+
+    interface Task<T> {
+        T run(ProgressListener progress) throws Exception;
+    }
+
+    interface Callback<T> {
+        void onSuccess(T result);
+
+        void onError(Exception e);
+    }
+
+    private static final String CHANNEL_ID = "social_share_export";
+    private static final int NOTIFICATION_ID = 0x5153;
+    private static final int READY_NOTIFICATION_ID = 0x5154;
+
+    private static final ConcurrentLinkedQueue<Job<?>> pendingJobs = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private NotificationManager notificationManager;
+    private int queuedJobs = 0;
+    private int lastStartId = 0;
+
+    // Queue a job and make sure the service is running. Progress and the result are delivered on the main thread.
+    static <T> void enqueue(Context context, String title, Task<T> task, ProgressListener progress,
+            Callback<T> callback) {
+        pendingJobs.add(new Job<>(title, task, progress, callback));
+
+        Intent intent = new Intent(context, ExportService.class);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // getSystemService(Class) only exists from API 23
+        notificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        createChannel(notificationManager);
+    }
+
+    // Activities can't be started from the background on Android 10+, and running a foreground service doesn't
+    // change that. When an export finishes while the user is in another app, this notification opens the target.
+    static void notifyReady(Context context, String text, Intent target) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(NOTIFICATION_SERVICE);
+        createChannel(manager);
+
+        target.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+        PendingIntent open = PendingIntent.getActivity(context, READY_NOTIFICATION_ID, target, flags);
+
+        manager.notify(READY_NOTIFICATION_ID, newBuilder(context)
+                .setContentTitle("Ready to share")
+                .setContentText(text)
+                .setSmallIcon(android.R.drawable.stat_sys_upload_done)
+                .setContentIntent(open)
+                .setAutoCancel(true)
+                .build());
+    }
+
+    private static void createChannel(NotificationManager manager) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Media export",
+                    NotificationManager.IMPORTANCE_LOW);
+            manager.createNotificationChannel(channel);
+        }
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        lastStartId = startId;
+        // startForeground must be called for every startForegroundService, even if the queue is already empty
+        Notification notification = buildNotification("Preparing media", 0, 0);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+
+        Job<?> job;
+        while ((job = pendingJobs.poll()) != null) {
+            queuedJobs++;
+            final Job<?> next = job;
+            worker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    execute(next);
+                }
+            });
+        }
+
+        if (queuedJobs == 0) {
+            stopSelfIfIdle();
+        }
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        worker.shutdown();
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private <T> void execute(final Job<T> job) {
+        Log.d("SocialShare", "📱 Background export started: " + job.title);
+        final int[] lastPercent = { -1 };
+
+        ProgressListener progress = new ProgressListener() {
+            @Override
+            public void onProgress(final long completed, final long total) {
+                int percent = total > 0 ? (int) (completed * 100 / total) : 0;
+                if (percent == lastPercent[0]) {
+                    return;
+                }
+                lastPercent[0] = percent;
+                notificationManager.notify(NOTIFICATION_ID, buildNotification(job.title, percent, 100));
+                if (job.progress != null) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            job.progress.onProgress(completed, total);
+                        }
+                    });
+                }
+            }
+        };
+
+        try {
+            final T result = job.task.run(progress);
+            Log.d("SocialShare", "✅ Background export finished: " + job.title);
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    job.callback.onSuccess(result);
+                    onJobFinished();
+                }
+            });
+        } catch (final Exception e) {
+            Log.e("SocialShare", "❌ Background export failed: " + e.getMessage());
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    job.callback.onError(e);
+                    onJobFinished();
+                }
+            });
+        }
+    }
+
+    // Runs on the main thread, as does onStartCommand, so queuedJobs needs no locking
+    private void onJobFinished() {
+        queuedJobs--;
+        stopSelfIfIdle();
+    }
+
+    // enqueue() runs on another thread, so a job can be added after the emptiness check. Its start command is
+    // then still pending, and stopSelfResult(lastStartId) refuses to stop so that command gets delivered.
+    @SuppressWarnings("deprecation")
+    private void stopSelfIfIdle() {
+        if (queuedJobs == 0 && pendingJobs.isEmpty() && stopSelfResult(lastStartId)) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                stopForeground(STOP_FOREGROUND_REMOVE);
+            } else {
+                stopForeground(true);
+            }
+        }
+    }
+
+    private Notification buildNotification(String title, int progress, int max) {
+        return newBuilder(this).setContentTitle(title)
+                .setSmallIcon(android.R.drawable.stat_sys_upload)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setProgress(max, progress, max == 0)
+                .build();
+    }
+
+    // The channel-less Builder constructor is only used below API 26
+    @SuppressWarnings("deprecation")
+    private static Notification.Builder newBuilder(Context context) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? new Notification.Builder(context, CHANNEL_ID)
+                : new Notification.Builder(context);
+    }
+
+    private static class Job<T> {
+        final String title;
+        final Task<T> task;
+        final ProgressListener progress;
+        final Callback<T> callback;
+
+        Job(String title, Task<T> task, ProgressListener progress, Callback<T> callback) {
+            this.title = title;
+            this.task = task;
+            this.progress = progress;
+            this.callback = callback;
+        }
+    }
+}
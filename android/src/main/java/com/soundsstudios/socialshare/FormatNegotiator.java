@@ -0,0 +1,255 @@
+package com.soundsstudios.socialshare;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.os.Build;
+import android.util.Log;
+
+import com.soundsstudios.socialshare.MediaSniffer.Format;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Picks the image format each share target handles best and transcodes to it
+// when that makes the payload smaller (or when the target can't take the
+// source format at all). Lossy sources are left alone to avoid generation loss;
+// lossless ones (PNG, BMP) are re-encoded to the target's preferred lossy format
+// unless they have transparency the target format would lose. Sources are
+// decoded downsampled to what the platform keeps anyway, and EXIF orientation
+// is applied to the pixels since the re-encoded file carries no EXIF.
+class FormatNegotiator {
+
+    // Accepted image formats per platform, best first. Anything not listed goes through untouched.
+    private static final Map<String, List<Format>> ACCEPTED = new HashMap<>();
+
+    static {
+        ACCEPTED.put("instagram", Arrays.asList(Format.JPEG, Format.PNG));
+        ACCEPTED.put("instagram-stories", Arrays.asList(Format.JPEG, Format.PNG));
+        ACCEPTED.put("facebook", Arrays.asList(Format.JPEG, Format.PNG, Format.GIF));
+        ACCEPTED.put("twitter", Arrays.asList(Format.WEBP, Format.JPEG, Format.PNG, Format.GIF));
+        ACCEPTED.put("tiktok", Arrays.asList(Format.JPEG, Format.WEBP, Format.PNG));
+        ACCEPTED.put("whatsapp", Arrays.asList(Format.JPEG, Format.PNG, Format.GIF));
+        ACCEPTED.put("linkedin", Arrays.asList(Format.JPEG, Format.PNG, Format.GIF));
+        ACCEPTED.put("snapchat", Arrays.asList(Format.JPEG, Format.PNG));
+        ACCEPTED.put("telegram", Arrays.asList(Format.WEBP, Format.JPEG, Format.PNG, Format.GIF));
+        ACCEPTED.put("reddit", Arrays.asList(Format.JPEG, Format.PNG, Format.GIF));
+    }
+
+    // Longest edge each platform keeps; larger images are downscaled on upload anyway
+    private static final Map<String, Integer> MAX_DIMENSION = new HashMap<>();
+
+    static {
+        MAX_DIMENSION.put("instagram", 1440);
+        MAX_DIMENSION.put("instagram-stories", 1920);
+        MAX_DIMENSION.put("facebook", 2048);
+        MAX_DIMENSION.put("twitter", 4096);
+        MAX_DIMENSION.put("tiktok", 1920);
+        MAX_DIMENSION.put("whatsapp", 1600);
+        MAX_DIMENSION.put("linkedin", 2048);
+        MAX_DIMENSION.put("snapchat", 1920);
+        MAX_DIMENSION.put("telegram", 2560);
+        MAX_DIMENSION.put("reddit", 4096);
+    }
+
+    private static final int DEFAULT_MAX_DIMENSION = 2048;
+    private static final int QUALITY = 90;
+
+    private final StagingArea staging;
+
+    FormatNegotiator(StagingArea staging) {
+        this.staging = staging;
+    }
+
+    // Returns the file to share: the original, or a smaller transcoded copy in a format the platform accepts
+    File negotiate(File source, String platform) {
+        List<Format> accepted = ACCEPTED.get(platform);
+        Format format = MediaSniffer.sniff(source);
+        if (accepted == null || !format.isImage()) {
+            return source;
+        }
+
+        boolean supported = accepted.contains(format);
+        // Lossy images are already small and re-encoding would only degrade them; GIFs may be animated
+        if (supported && (format.lossy || format == Format.GIF)) {
+            return source;
+        }
+
+        Integer maxDimension = MAX_DIMENSION.get(platform);
+        Bitmap bitmap = decode(source, maxDimension != null ? maxDimension : DEFAULT_MAX_DIMENSION);
+        if (bitmap == null) {
+            return source;
+        }
+        bitmap = applyOrientation(bitmap, readOrientation(source));
+
+        try {
+            Format target = pickTarget(accepted, bitmap.hasAlpha(), format);
+            if (target == null || target == format) {
+                return source;
+            }
+
+            File output = transcode(bitmap, target);
+            if (output == null) {
+                return source;
+            }
+            if (supported && output.length() >= source.length()) {
+                output.delete();
+                return source;
+            }
+
+            Log.d("SocialShare", "📱 Transcoded " + format + " → " + target + " for " + platform + " ("
+                    + source.length() + " → " + output.length() + " bytes)");
+            return output;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    // Decodes at the smallest power-of-two subsample that still covers maxDimension, halving again on OOM
+    private static Bitmap decode(File source, int maxDimension) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        int sampleSize = sampleSize(options.outWidth, options.outHeight, maxDimension);
+        options = new BitmapFactory.Options();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            options.inSampleSize = sampleSize;
+            try {
+                return BitmapFactory.decodeFile(source.getAbsolutePath(), options);
+            } catch (OutOfMemoryError e) {
+                Log.w("SocialShare", "⚠️ Out of memory decoding " + source.getName() + " at 1/" + sampleSize);
+                sampleSize *= 2;
+            }
+        }
+        return null;
+    }
+
+    // Largest power of two that keeps the longest edge at or above maxDimension
+    static int sampleSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int readOrientation(File source) {
+        try {
+            return new ExifInterface(source.getAbsolutePath())
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    // Bakes the EXIF orientation into the pixels, recycling the original when a new bitmap is made
+    private static Bitmap applyOrientation(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                return bitmap;
+        }
+
+        try {
+            Bitmap oriented = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            if (oriented != bitmap) {
+                bitmap.recycle();
+            }
+            return oriented;
+        } catch (OutOfMemoryError e) {
+            Log.w("SocialShare", "⚠️ Out of memory rotating image; sharing it unrotated");
+            return bitmap;
+        }
+    }
+
+    // First accepted lossy format we can encode, skipping JPEG when it would flatten transparency
+    static Format pickTarget(List<Format> accepted, boolean hasAlpha, Format source) {
+        for (Format candidate : accepted) {
+            if (candidate == Format.JPEG && !hasAlpha) {
+                return candidate;
+            }
+            if (candidate == Format.WEBP) {
+                return candidate;
+            }
+        }
+        // Nothing lossy fits; fall back to PNG if the source isn't acceptable as is
+        return accepted.contains(source) ? source : accepted.contains(Format.PNG) ? Format.PNG : null;
+    }
+
+    @SuppressWarnings("deprecation")
+    private File transcode(Bitmap bitmap, Format target) {
+        Bitmap.CompressFormat compressFormat;
+        switch (target) {
+            case JPEG:
+                compressFormat = Bitmap.CompressFormat.JPEG;
+                break;
+            case PNG:
+                compressFormat = Bitmap.CompressFormat.PNG;
+                break;
+            case WEBP:
+                compressFormat = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                        ? Bitmap.CompressFormat.WEBP_LOSSY
+                        : Bitmap.CompressFormat.WEBP;
+                break;
+            default:
+                // HEIF encoding needs androidx.heifwriter, which this plugin doesn't depend on
+                return null;
+        }
+
+        try {
+            File output = staging.reserve("share", target.extension);
+            File pending = staging.pending(output);
+            boolean compressed;
+            try (OutputStream out = new FileOutputStream(pending)) {
+                compressed = bitmap.compress(compressFormat, QUALITY, out);
+            } catch (IOException e) {
+                staging.abort(pending, output);
+                throw e;
+            }
+            if (!compressed) {
+                staging.abort(pending, output);
+                return null;
+            }
+            staging.commit(pending, output);
+            return output;
+        } catch (IOException e) {
+            Log.e("SocialShare", "❌ Failed to transcode image: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.soundsstudios.socialshare;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.ParcelFileDescriptor;
+import android.os.StatFs;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// Copies large media files into the MediaStore in fixed-size chunks.
+// The committed offset and a running CRC32 of everything up to it are
+// journaled every few chunks, so an export that gets interrupted (low storage,
+// process death, revoked URI) resumes from there the next time the same
+// content is exported instead of starting over. Journals and finished exports
+// are both keyed by ContentFingerprint, so a re-share of the same content
+// resumes or reuses the MediaStore row even when it arrives under a new path
+// (base64 data, staged copies).
+class GalleryExporter {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    // Chunks copied between journal writes
+    private static final int JOURNAL_INTERVAL = 8;
+
+    // Extra room kept free on the volume so the export never fills it completely
+    private static final long SPACE_HEADROOM = 16L * 1024 * 1024;
+
+    private static final String PREFS_NAME = "SocialShareGalleryExports";
+    private static final String INDEX_PREFS_NAME = "SocialShareGalleryIndex";
+
+    private final Context context;
+
+    GalleryExporter(Context context) {
+        this.context = context;
+    }
+
+    // Export a video into Movies/, resuming a previous partial export of the same file when possible
+    Uri exportVideo(File source, ProgressListener progress) throws IOException {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.Video.Media.DISPLAY_NAME, source.getName());
+        values.put(MediaStore.Video.Media.MIME_TYPE, "video/mp4");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            values.put(MediaStore.Video.Media.RELATIVE_PATH, Environment.DIRECTORY_MOVIES);
+        }
+
+        return export(source, MediaStore.Video.Media.EXTERNAL_CONTENT_URI, values, progress);
+    }
+
+    // Export an image into Pictures/ with its real MIME type. The Images collection rejects non-image
+    // types, so content we can't identify is labelled image/jpeg as it always was.
+    Uri exportImage(File source, ProgressListener progress) throws IOException {
+        MediaSniffer.Format format = MediaSniffer.sniff(source);
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.Images.Media.DISPLAY_NAME, source.getName());
+        values.put(MediaStore.Images.Media.MIME_TYPE, format.isImage() ? format.mimeType : "image/jpeg");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            values.put(MediaStore.Images.Media.RELATIVE_PATH, Environment.DIRECTORY_PICTURES);
+        }
+
+        return export(source, MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values, progress);
+    }
+
+    private Uri export(File source, Uri collection, ContentValues values, ProgressListener progress)
+            throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        long length = source.length();
+
+        String fingerprint = ContentFingerprint.of(source);
+        Uri existing = findIndexed(resolver, fingerprint, length);
+        if (existing != null) {
+            Log.d("SocialShare", "✅ Already in Gallery, reusing " + existing);
+            progress.onProgress(length, length);
+            return existing;
+        }
+
+        Journal journal = loadJournal(fingerprint, length);
+        CRC32 crc = journal != null ? resumeChecksum(resolver, source, journal) : null;
+        if (journal != null && crc == null) {
+            Log.d("SocialShare", "📱 Previous export of " + source.getName() + " is stale, starting over");
+            discard(resolver, journal);
+            journal = null;
+        }
+
+        long offset = journal != null ? journal.committedBytes : 0;
+        ensureFreeSpace(length - offset);
+
+        if (journal == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                // Keep the row hidden from the gallery until the copy is verified
+                values.put(MediaStore.MediaColumns.IS_PENDING, 1);
+            }
+            Uri target = resolver.insert(collection, values);
+            if (target == null) {
+                throw new IOException("Failed to create MediaStore entry");
+            }
+            journal = new Journal(fingerprint, length, target);
+            saveJournal(journal);
+            crc = new CRC32();
+        } else {
+            Log.d("SocialShare", "📱 Resuming export at " + offset + " of " + length + " bytes");
+        }
+
+        copyChunks(resolver, source, journal, crc, progress);
+
+        if (!verify(resolver, journal, crc.getValue())) {
+            discard(resolver, journal);
+            throw new IOException("Gallery copy failed integrity check");
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ContentValues published = new ContentValues();
+            published.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            resolver.update(journal.target, published, null, null);
+        }
+
+        clearJournal(fingerprint);
+        indexPrefs().edit().putString(fingerprint, journal.target.toString()).apply();
+        Log.d("SocialShare", "✅ Exported " + length + " bytes");
+        return journal.target;
+    }
+
+    // Copies from the journal's committed offset to the end, extending `crc` over every byte written
+    private void copyChunks(ContentResolver resolver, File source, Journal journal, CRC32 crc,
+            ProgressListener progress) throws IOException {
+        long offset = journal.committedBytes;
+        long length = journal.length;
+        int unjournaled = 0;
+
+        ParcelFileDescriptor descriptor = openDescriptor(resolver, journal.target, "rw");
+        try (BufferPool.Lease lease = BufferPool.acquire(CHUNK_SIZE);
+                FileInputStream inputStream = new FileInputStream(source);
+                FileOutputStream outputStream = new FileOutputStream(descriptor.getFileDescriptor())) {
+            ByteBuffer buffer = lease.buffer();
+            FileChannel in = inputStream.getChannel();
+            FileChannel out = outputStream.getChannel();
+            in.position(offset);
+            out.position(offset);
+
+            try {
+                while (offset < length) {
+                    int read = readChunk(in, buffer);
+                    if (read <= 0) {
+                        throw new IOException("Source file ended early at " + offset + " of " + length + " bytes");
+                    }
+
+                    buffer.flip();
+                    // Only extend the CRC once the chunk is out, so a failed write leaves it matching offset
+                    ByteBuffer chunk = buffer.duplicate();
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    checksum(crc, buffer);
+
+                    offset += read;
+                    if (++unjournaled == JOURNAL_INTERVAL) {
+                        commitProgress(journal, offset, crc);
+                        unjournaled = 0;
+                    }
+                    progress.onProgress(offset, length);
+                }
+            } catch (IOException | SecurityException e) {
+                // Keep what made it out (e.g. before the volume filled up or the URI was revoked) for the next attempt
+                commitProgress(journal, offset, crc);
+                throw e;
+            }
+
+            // Drop any bytes left behind by an earlier, longer partial write
+            out.truncate(length);
+            out.force(false);
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    private void commitProgress(Journal journal, long offset, CRC32 crc) {
+        journal.committedBytes = offset;
+        journal.crc = crc.getValue();
+        saveJournal(journal);
+    }
+
+    // Re-read the whole destination and compare it with the CRC of the source
+    private boolean verify(ContentResolver resolver, Journal journal, long expectedCrc) throws IOException {
+        if (destinationSize(resolver, journal.target) != journal.length) {
+            return false;
+        }
+        CRC32 written = destinationChecksum(resolver, journal.target, journal.length);
+        if (written == null || written.getValue() != expectedCrc) {
+            Log.e("SocialShare", "❌ Checksum mismatch in exported file");
+            return false;
+        }
+        return true;
+    }
+
+    // The CRC state to continue from when both the source and the destination still match the journaled prefix,
+    // otherwise null. The journal is keyed by a sampled fingerprint, so the source prefix has to be checked too:
+    // a same-size source edited outside the sampled blocks would otherwise resume and pass verify().
+    // Re-reading the prefixes once is what lets the journal carry a single running CRC.
+    private CRC32 resumeChecksum(ContentResolver resolver, File source, Journal journal) {
+        try {
+            if (destinationSize(resolver, journal.target) < journal.committedBytes) {
+                return null;
+            }
+            CRC32 original;
+            try (FileInputStream in = new FileInputStream(source)) {
+                original = prefixChecksum(in.getChannel(), journal.committedBytes);
+            }
+            if (original == null || original.getValue() != journal.crc) {
+                return null;
+            }
+            CRC32 written = destinationChecksum(resolver, journal.target, journal.committedBytes);
+            return written != null && written.getValue() == journal.crc ? original : null;
+        } catch (IOException | SecurityException e) {
+            Log.d("SocialShare", "📱 Previous export can no longer be read: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // CRC32 of the destination's first `bytes` bytes, or null when it is shorter than that
+    private static CRC32 destinationChecksum(ContentResolver resolver, Uri target, long bytes) throws IOException {
+        ParcelFileDescriptor descriptor = openDescriptor(resolver, target, "r");
+        try (FileInputStream in = new FileInputStream(descriptor.getFileDescriptor())) {
+            return prefixChecksum(in.getChannel(), bytes);
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    // CRC32 of the channel's first `bytes` bytes from its current position, or null when it is shorter than that
+    private static CRC32 prefixChecksum(FileChannel in, long bytes) throws IOException {
+        CRC32 crc = new CRC32();
+        try (BufferPool.Lease lease = BufferPool.acquire(CHUNK_SIZE)) {
+            ByteBuffer buffer = lease.buffer();
+            long remaining = bytes;
+            while (remaining > 0) {
+                int read = readChunk(in, buffer);
+                if (read <= 0) {
+                    return null;
+                }
+                buffer.flip();
+                if (read > remaining) {
+                    buffer.limit((int) remaining);
+                }
+                checksum(crc, buffer);
+                remaining -= buffer.remaining();
+            }
+            return crc;
+        }
+    }
+
+    // A previously exported row for this content, if it still exists and still has the same size
+    private Uri findIndexed(ContentResolver resolver, String fingerprint, long length) {
+        String indexed = indexPrefs().getString(fingerprint, null);
+        if (indexed == null) {
+            return null;
+        }
+
+        Uri uri = Uri.parse(indexed);
+        try (Cursor cursor = resolver.query(uri, new String[] { MediaStore.MediaColumns.SIZE }, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && cursor.getLong(0) == length) {
+                return uri;
+            }
+        } catch (SecurityException e) {
+            // We no longer own the row (e.g. after a reinstall)
+            Log.d("SocialShare", "📱 Indexed gallery entry is no longer accessible: " + e.getMessage());
+        }
+
+        // Deleted from the gallery or replaced; forget it and export again
+        indexPrefs().edit().remove(fingerprint).apply();
+        return null;
+    }
+
+    private void ensureFreeSpace(long remainingBytes) throws IOException {
+        // Our external files dir lives on the primary shared volume, the one MediaStore writes to
+        File volume = context.getExternalFilesDir(null);
+        if (volume == null) {
+            // Shared storage isn't mounted; let the MediaStore insert report it
+            return;
+        }
+        StatFs stat = new StatFs(volume.getPath());
+        long available = stat.getAvailableBytes();
+        if (available < remainingBytes + SPACE_HEADROOM) {
+            throw new IOException("Not enough free space to save to gallery (needs " + remainingBytes
+                    + " bytes, " + available + " available)");
+        }
+    }
+
+    private static long destinationSize(ContentResolver resolver, Uri target) throws IOException {
+        ParcelFileDescriptor descriptor = openDescriptor(resolver, target, "r");
+        try {
+            return descriptor.getStatSize();
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    private static ParcelFileDescriptor openDescriptor(ContentResolver resolver, Uri target, String mode)
+            throws IOException {
+        ParcelFileDescriptor descriptor = resolver.openFileDescriptor(target, mode);
+        if (descriptor == null) {
+            throw new IOException("Unable to open " + target);
+        }
+        return descriptor;
+    }
+
+    // Fill the buffer up to CHUNK_SIZE or end of file, returning the number of bytes read
+    private static int readChunk(FileChannel in, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        buffer.limit(CHUNK_SIZE);
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    // Extend the CRC over the buffer's remaining bytes, leaving its position untouched. Pooled buffers are
+    // direct, so before API 26 (no CRC32.update(ByteBuffer)) the bytes go through a small heap window.
+    private static void checksum(CRC32 crc, ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            crc.update(view);
+            return;
+        }
+        byte[] window = new byte[Math.min(view.remaining(), 8 * 1024)];
+        while (view.hasRemaining()) {
+            int length = Math.min(view.remaining(), window.length);
+            view.get(window, 0, length);
+            crc.update(window, 0, length);
+        }
+    }
+
+    private void discard(ContentResolver resolver, Journal journal) {
+        try {
+            resolver.delete(journal.target, null, null);
+        } catch (Exception e) {
+            Log.d("SocialShare", "📱 Could not delete partial export: " + e.getMessage());
+        }
+        clearJournal(journal.fingerprint);
+    }
+
+    private SharedPreferences indexPrefs() {
+        return context.getSharedPreferences(INDEX_PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private Journal loadJournal(String fingerprint, long length) {
+        String json = prefs().getString(fingerprint, null);
+        if (json == null) {
+            return null;
+        }
+        try {
+            Journal journal = Journal.fromJson(new JSONObject(json));
+            // The fingerprint covers the size, but a mismatch means the journal can't be trusted at all
+            if (journal.length != length) {
+                discard(context.getContentResolver(), journal);
+                return null;
+            }
+            return journal;
+        } catch (JSONException e) {
+            clearJournal(fingerprint);
+            return null;
+        }
+    }
+
+    private void saveJournal(Journal journal) {
+        try {
+            prefs().edit().putString(journal.fingerprint, journal.toJson().toString()).apply();
+        } catch (JSONException e) {
+            Log.e("SocialShare", "❌ Failed to record export progress: " + e.getMessage());
+        }
+    }
+
+    private void clearJournal(String fingerprint) {
+        prefs().edit().remove(fingerprint).apply();
+    }
+
+    // Persistent record of how far an export got
+    private static class Journal {
+        final String fingerprint;
+        final long length;
+        final Uri target;
+        long committedBytes;
+        // CRC32 of the source's first committedBytes bytes
+        long crc;
+
+        Journal(String fingerprint, long length, Uri target) {
+            this(fingerprint, length, target, 0, new CRC32().getValue());
+        }
+
+        private Journal(String fingerprint, long length, Uri target, long committedBytes, long crc) {
+            this.fingerprint = fingerprint;
+            this.length = length;
+            this.target = target;
+            this.committedBytes = committedBytes;
+            this.crc = crc;
+        }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put("fingerprint", fingerprint)
+                    .put("length", length)
+                    .put("target", target.toString())
+                    .put("committedBytes", committedBytes)
+                    .put("crc", crc);
+        }
+
+        static Journal fromJson(JSONObject json) throws JSONException {
+            return new Journal(json.getString("fingerprint"), json.getLong("length"), Uri.parse(json.getString("target")),
+                    json.getLong("committedBytes"), json.getLong("crc"));
+        }
+    }
+}
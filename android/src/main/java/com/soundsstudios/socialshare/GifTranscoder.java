@@ -0,0 +1,224 @@
+package com.soundsstudios.socialshare;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Movie;
+import android.media.Image;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Converts animated GIFs into H.264 MP4 clips, which are typically 10-20x
+// smaller and start playing much sooner in the receiving app. Frames are
+// decoded one at a time with Movie into a single reused Bitmap, converted to
+// YUV and fed straight to the hardware encoder, so memory use doesn't grow
+// with the length of the GIF. Results are cached by ContentFingerprint, so
+// sharing the same GIF again reuses the earlier conversion.
+@SuppressWarnings("deprecation")
+class GifTranscoder {
+
+    private static final String MIME_TYPE = MediaFormat.MIMETYPE_VIDEO_AVC;
+    private static final int FRAME_RATE = 25;
+    private static final int MAX_DIMENSION = 1280;
+    private static final long TIMEOUT_US = 10000;
+
+    // One frame Bitmap kept between conversions; most shares are the same GIF size over and over
+    private static Bitmap spareFrame;
+
+    private final StagingArea staging;
+
+    GifTranscoder(StagingArea staging) {
+        this.staging = staging;
+    }
+
+    // Returns the MP4 for an animated GIF, or null when the GIF has a single frame and should stay an image
+    File convert(File gif, ProgressListener progress) throws IOException {
+        File cached = staging.keyed("gif_" + ContentFingerprint.of(gif), "mp4");
+        if (cached.exists()) {
+            // Keep frequently shared conversions from being purged
+            cached.setLastModified(System.currentTimeMillis());
+            Log.d("SocialShare", "✅ Reusing converted GIF: " + cached.getName());
+            return cached;
+        }
+
+        Movie movie = Movie.decodeFile(gif.getAbsolutePath());
+        if (movie == null) {
+            throw new IOException("Unable to decode GIF " + gif.getName());
+        }
+        int duration = movie.duration();
+        if (duration <= 0) {
+            return null;
+        }
+
+        File output = staging.reserve("gif", "mp4");
+        File pending = staging.pending(output);
+        try {
+            encode(movie, duration, pending, progress);
+            staging.commit(pending, output);
+        } catch (IOException | RuntimeException e) {
+            staging.abort(pending, output);
+            throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        }
+
+        // Concurrent conversions of the same GIF produce the same clip, so whichever rename lands last is fine
+        if (!output.renameTo(cached)) {
+            return output;
+        }
+        Log.d("SocialShare", "✅ Converted GIF " + gif.length() + " → " + cached.length() + " bytes");
+        return cached;
+    }
+
+    private void encode(Movie movie, int durationMs, File target, ProgressListener progress) throws IOException {
+        float scale = Math.min(1f, (float) MAX_DIMENSION / Math.max(movie.width(), movie.height()));
+        // H.264 encoders need even dimensions
+        int width = Math.max(2, Math.round(movie.width() * scale) & ~1);
+        int height = Math.max(2, Math.round(movie.height() * scale) & ~1);
+        int frameCount = Math.max(1, (int) ((long) durationMs * FRAME_RATE / 1000));
+
+        MediaFormat format = MediaFormat.createVideoFormat(MIME_TYPE, width, height);
+        format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, Math.max(250000, width * height * 3));
+        format.setInteger(MediaFormat.KEY_FRAME_RATE, FRAME_RATE);
+        format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, 1);
+
+        Bitmap frame = takeFrame(width, height);
+        Canvas canvas = new Canvas(frame);
+        canvas.scale((float) width / movie.width(), (float) height / movie.height());
+        // Heap array rather than a pooled direct buffer: the per-pixel conversion loop reads it much faster
+        int[] pixels = new int[width * height];
+
+        MediaCodec encoder = MediaCodec.createEncoderByType(MIME_TYPE);
+        MediaMuxer muxer = null;
+        try {
+            encoder.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            encoder.start();
+            muxer = new MediaMuxer(target.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            int[] track = { -1 };
+            int frameIndex = 0;
+            boolean inputDone = false;
+            boolean outputDone = false;
+            while (!outputDone) {
+                if (!inputDone) {
+                    int inputIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        long presentationTimeUs = frameIndex * 1000000L / FRAME_RATE;
+                        if (frameIndex == frameCount) {
+                            encoder.queueInputBuffer(inputIndex, 0, 0, presentationTimeUs,
+                                    MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            // GIFs may leave pixels transparent; flatten onto white like an image viewer would
+                            frame.eraseColor(Color.WHITE);
+                            movie.setTime((int) (presentationTimeUs / 1000));
+                            movie.draw(canvas, 0, 0);
+                            frame.getPixels(pixels, 0, width, 0, 0, width, height);
+                            writeYuv(pixels, width, height, encoder.getInputImage(inputIndex));
+                            encoder.queueInputBuffer(inputIndex, 0, width * height * 3 / 2, presentationTimeUs, 0);
+                            frameIndex++;
+                            progress.onProgress(frameIndex, frameCount);
+                        }
+                    }
+                }
+                outputDone = drain(encoder, muxer, info, track);
+            }
+
+            muxer.stop();
+        } finally {
+            encoder.release();
+            if (muxer != null) {
+                muxer.release();
+            }
+            releaseFrame(frame);
+        }
+    }
+
+    // Moves encoded output into the muxer; returns true once the end of stream has come out
+    private static boolean drain(MediaCodec encoder, MediaMuxer muxer, MediaCodec.BufferInfo info, int[] track) {
+        while (true) {
+            int outputIndex = encoder.dequeueOutputBuffer(info, 0);
+            if (outputIndex == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                return false;
+            }
+            if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                track[0] = muxer.addTrack(encoder.getOutputFormat());
+                muxer.start();
+                continue;
+            }
+            if (outputIndex < 0) {
+                continue;
+            }
+
+            ByteBuffer encoded = encoder.getOutputBuffer(outputIndex);
+            // Codec config is already part of the track format
+            if ((info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0 && info.size > 0 && track[0] >= 0) {
+                encoded.position(info.offset);
+                encoded.limit(info.offset + info.size);
+                muxer.writeSampleData(track[0], encoded, info);
+            }
+            encoder.releaseOutputBuffer(outputIndex, false);
+            if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                return true;
+            }
+        }
+    }
+
+    // ARGB → BT.601 limited-range YUV 4:2:0, honouring whatever plane layout the encoder chose
+    private static void writeYuv(int[] pixels, int width, int height, Image image) {
+        Image.Plane[] planes = image.getPlanes();
+        ByteBuffer y = planes[0].getBuffer();
+        ByteBuffer u = planes[1].getBuffer();
+        ByteBuffer v = planes[2].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        int yPixelStride = planes[0].getPixelStride();
+        int uRowStride = planes[1].getRowStride();
+        int uPixelStride = planes[1].getPixelStride();
+        int vRowStride = planes[2].getRowStride();
+        int vPixelStride = planes[2].getPixelStride();
+
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int argb = pixels[row * width + col];
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+                y.put(row * yRowStride + col * yPixelStride, (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16));
+                if ((row & 1) == 0 && (col & 1) == 0) {
+                    int chromaRow = row >> 1;
+                    int chromaCol = col >> 1;
+                    u.put(chromaRow * uRowStride + chromaCol * uPixelStride,
+                            (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128));
+                    v.put(chromaRow * vRowStride + chromaCol * vPixelStride,
+                            (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128));
+                }
+            }
+        }
+    }
+
+    private static synchronized Bitmap takeFrame(int width, int height) {
+        Bitmap frame = spareFrame;
+        spareFrame = null;
+        if (frame != null && !frame.isRecycled() && frame.getWidth() == width && frame.getHeight() == height) {
+            return frame;
+        }
+        if (frame != null) {
+            frame.recycle();
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private static synchronized void releaseFrame(Bitmap frame) {
+        if (spareFrame != null) {
+            spareFrame.recycle();
+        }
+        spareFrame = frame;
+    }
+}
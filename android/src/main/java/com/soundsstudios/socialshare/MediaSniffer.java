@@ -0,0 +1,150 @@
+package com.soundsstudios.socialshare;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// Identifies media by its leading magic bytes rather than trusting file names,
+// so a PNG screenshot staged as "temp_123.jpg" is still shared as image/png.
+final class MediaSniffer {
+
+    enum Format {
+        JPEG("image/jpeg", "jpg", true),
+        PNG("image/png", "png", false),
+        GIF("image/gif", "gif", false),
+        WEBP("image/webp", "webp", true),
+        HEIF("image/heif", "heic", true),
+        AVIF("image/avif", "avif", true),
+        BMP("image/bmp", "bmp", false),
+        MP4("video/mp4", "mp4", true),
+        MOV("video/quicktime", "mov", true),
+        WEBM("video/webm", "webm", true),
+        MP3("audio/mpeg", "mp3", true),
+        M4A("audio/mp4", "m4a", true),
+        AAC("audio/aac", "aac", true),
+        WAV("audio/wav", "wav", false),
+        OGG("audio/ogg", "ogg", true),
+        UNKNOWN("application/octet-stream", "bin", false);
+
+        final String mimeType;
+        final String extension;
+        final boolean lossy;
+
+        Format(String mimeType, String extension, boolean lossy) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+            this.lossy = lossy;
+        }
+
+        boolean isImage() {
+            return mimeType.startsWith("image/");
+        }
+    }
+
+    // Enough for every signature below
+    static final int HEADER_SIZE = 16;
+
+    private MediaSniffer() {
+    }
+
+    static Format sniff(File file) {
+        byte[] header = new byte[HEADER_SIZE];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while (length < header.length && (read = in.read(header, length, header.length - length)) > 0) {
+                length += read;
+            }
+        } catch (IOException e) {
+            return Format.UNKNOWN;
+        }
+        return sniff(header, length);
+    }
+
+    static Format sniff(byte[] data, int length) {
+        if (startsWith(data, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return Format.JPEG;
+        }
+        if (startsWith(data, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Format.PNG;
+        }
+        if (startsWith(data, length, 0, 'G', 'I', 'F', '8')) {
+            return Format.GIF;
+        }
+        if (startsWith(data, length, 0, 'R', 'I', 'F', 'F')) {
+            if (startsWith(data, length, 8, 'W', 'E', 'B', 'P')) {
+                return Format.WEBP;
+            }
+            if (startsWith(data, length, 8, 'W', 'A', 'V', 'E')) {
+                return Format.WAV;
+            }
+            return Format.UNKNOWN;
+        }
+        if (startsWith(data, length, 4, 'f', 't', 'y', 'p')) {
+            return isoBrand(data, length);
+        }
+        if (startsWith(data, length, 0, 'B', 'M')) {
+            return Format.BMP;
+        }
+        if (startsWith(data, length, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return Format.WEBM;
+        }
+        if (startsWith(data, length, 0, 'O', 'g', 'g', 'S')) {
+            return Format.OGG;
+        }
+        if (startsWith(data, length, 0, 'I', 'D', '3')) {
+            return Format.MP3;
+        }
+        if (length >= 2 && (data[0] & 0xFF) == 0xFF) {
+            // ADTS (AAC) and MPEG audio frames share the 0xFFF sync word; ADTS has layer bits 00
+            if ((data[1] & 0xF6) == 0xF0) {
+                return Format.AAC;
+            }
+            if ((data[1] & 0xE0) == 0xE0) {
+                return Format.MP3;
+            }
+        }
+        return Format.UNKNOWN;
+    }
+
+    // ISO base media files (MP4, MOV, M4A, HEIF, AVIF) are told apart by their major brand
+    private static Format isoBrand(byte[] data, int length) {
+        if (length < 12) {
+            return Format.MP4;
+        }
+        String brand = new String(data, 8, 4, StandardCharsets.US_ASCII);
+        switch (brand) {
+            case "heic":
+            case "heix":
+            case "hevc":
+            case "hevx":
+            case "mif1":
+            case "msf1":
+                return Format.HEIF;
+            case "avif":
+            case "avis":
+                return Format.AVIF;
+            case "M4A ":
+            case "M4B ":
+                return Format.M4A;
+            case "qt  ":
+                return Format.MOV;
+            default:
+                return Format.MP4;
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int length, int offset, int... signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((data[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,136 @@
+package com.soundsstudios.socialshare;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Build;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Reports which share targets are installed and which share intents they accept.
+// Everything is gathered in one pass (installed packages plus one activity query
+// per intent action) instead of one lookup per platform, and the result is cached
+// until a package is installed, updated or removed.
+class PlatformProbe {
+
+    static final String ACTION_ADD_TO_STORY = "com.instagram.share.ADD_TO_STORY";
+
+    // Platform id (as used by share()) to the package that handles it
+    static final Map<String, String> PACKAGES = new LinkedHashMap<>();
+
+    static {
+        PACKAGES.put("instagram", "com.instagram.android");
+        PACKAGES.put("instagram-stories", "com.instagram.android");
+        PACKAGES.put("facebook", "com.facebook.katana");
+        PACKAGES.put("twitter", "com.twitter.android");
+        PACKAGES.put("tiktok", "com.zhiliaoapp.musically");
+        PACKAGES.put("whatsapp", "com.whatsapp");
+        PACKAGES.put("linkedin", "com.linkedin.android");
+        PACKAGES.put("snapchat", "com.snapchat.android");
+        PACKAGES.put("telegram", "org.telegram.messenger");
+        PACKAGES.put("reddit", "com.reddit.frontpage");
+    }
+
+    private final Context context;
+    private JSObject cached;
+    private boolean receiverRegistered = false;
+
+    PlatformProbe(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    synchronized JSObject probe(boolean refresh) {
+        if (cached != null && !refresh) {
+            return cached;
+        }
+        registerInvalidationReceiver();
+
+        PackageManager packageManager = context.getPackageManager();
+        Set<String> targets = new HashSet<>(PACKAGES.values());
+
+        Map<String, PackageInfo> installed = new HashMap<>();
+        for (PackageInfo info : packageManager.getInstalledPackages(0)) {
+            if (targets.contains(info.packageName)) {
+                installed.put(info.packageName, info);
+            }
+        }
+
+        Set<String> send = handlers(packageManager, new Intent(Intent.ACTION_SEND).setType("*/*"));
+        Set<String> sendMultiple = handlers(packageManager, new Intent(Intent.ACTION_SEND_MULTIPLE).setType("*/*"));
+        Set<String> stories = handlers(packageManager, new Intent(ACTION_ADD_TO_STORY).setType("*/*"));
+
+        JSObject platforms = new JSObject();
+        for (Map.Entry<String, String> entry : PACKAGES.entrySet()) {
+            String packageName = entry.getValue();
+            PackageInfo info = installed.get(packageName);
+
+            JSObject platform = new JSObject();
+            platform.put("packageName", packageName);
+            platform.put("installed", info != null);
+            if (info != null) {
+                platform.put("versionCode", versionCode(info));
+                platform.put("versionName", info.versionName);
+            }
+            platform.put("supportsSend", send.contains(packageName));
+            platform.put("supportsSendMultiple", sendMultiple.contains(packageName));
+            platform.put("supportsStories", stories.contains(packageName));
+            platforms.put(entry.getKey(), platform);
+        }
+
+        Log.d("SocialShare", "📱 Probed " + PACKAGES.size() + " platforms, " + installed.size() + " installed");
+        cached = new JSObject().put("platforms", platforms);
+        return cached;
+    }
+
+    synchronized void invalidate() {
+        cached = null;
+    }
+
+    private static Set<String> handlers(PackageManager packageManager, Intent intent) {
+        Set<String> packages = new HashSet<>();
+        List<ResolveInfo> activities = packageManager.queryIntentActivities(intent, 0);
+        for (ResolveInfo info : activities) {
+            packages.add(info.activityInfo.packageName);
+        }
+        return packages;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long versionCode(PackageInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return info.getLongVersionCode();
+        }
+        return info.versionCode;
+    }
+
+    // Drop the cached result whenever a package is installed, updated or removed
+    private void registerInvalidationReceiver() {
+        if (receiverRegistered) {
+            return;
+        }
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate();
+            }
+        }, filter);
+        receiverRegistered = true;
+    }
+}
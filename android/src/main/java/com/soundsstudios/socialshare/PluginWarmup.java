@@ -0,0 +1,64 @@
+package com.soundsstudios.socialshare;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.os.Trace;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps the plugin's one-time setup (resolver/package warmup, staging
+// directories) off the app's cold-start path. Nothing runs when the plugin
+// loads; the task starts once the main thread goes idle after the first frame,
+// or on the first share() call if that comes sooner, and always runs exactly
+// once on a low priority background thread.
+class PluginWarmup {
+
+    private final Runnable task;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    PluginWarmup(Runnable task) {
+        this.task = task;
+    }
+
+    // Called from load(): only posts a message, the idle handler is added once startup work has drained
+    void scheduleAfterFirstFrame() {
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                    @Override
+                    public boolean queueIdle() {
+                        start();
+                        return false;
+                    }
+                });
+            }
+        });
+    }
+
+    // Start the warmup now unless it already ran. Never blocks the caller.
+    void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                Trace.beginSection("SocialShare.warmUp");
+                try {
+                    task.run();
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        }, "SocialShare-warmup");
+        thread.start();
+    }
+
+    boolean isStarted() {
+        return started.get();
+    }
+}
@@ -0,0 +1,12 @@
+package com.soundsstudios.socialshare;
+
+// Receives progress updates from long-running encode and export work
+interface ProgressListener {
+    ProgressListener NONE = new ProgressListener() {
+        @Override
+        public void onProgress(long completed, long total) {
+        }
+    };
+
+    void onProgress(long completed, long total);
+}
@@ -0,0 +1,193 @@
+package com.soundsstudios.socialshare;
+
+import android.os.SystemClock;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Single-flight table for share() calls. A call whose platform and options are
+// identical to one still in flight (a double tap) does not run again: it waits
+// for the first call and receives the same result. With a debounce window,
+// identical calls arriving shortly after the first one finished get its result
+// replayed as well.
+class ShareCoalescer {
+
+    private final Map<String, Flight> flights = new HashMap<>();
+
+    // Options are part of the key, so the same share to a different platform or with different content runs
+    // normally. Each option is hashed in place, so multi-MB base64 payloads are never serialised or copied.
+    static String keyFor(PluginCall call) {
+        JSObject data = call.getData();
+        List<String> names = new ArrayList<>();
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            names.add(keys.next());
+        }
+        Collections.sort(names);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Without a digest, don't risk merging different shares: every call runs on its own
+            return call.getCallbackId();
+        }
+        char[] chars = new char[4096];
+        byte[] bytes = new byte[chars.length * 2];
+        for (String name : names) {
+            update(digest, name, chars, bytes);
+            digest.update((byte) '=');
+            update(digest, String.valueOf(data.opt(name)), chars, bytes);
+            digest.update((byte) 0);
+        }
+
+        StringBuilder key = new StringBuilder(call.getString("platform", "")).append(':');
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >>> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+        }
+        return key.toString();
+    }
+
+    // Feeds the string's UTF-16 code units through a fixed window instead of encoding a copy of it
+    private static void update(MessageDigest digest, String value, char[] chars, byte[] bytes) {
+        for (int start = 0; start < value.length(); start += chars.length) {
+            int end = Math.min(value.length(), start + chars.length);
+            value.getChars(start, end, chars, 0);
+            int length = 0;
+            for (int i = 0; i < end - start; i++) {
+                bytes[length++] = (byte) (chars[i] >>> 8);
+                bytes[length++] = (byte) chars[i];
+            }
+            digest.update(bytes, 0, length);
+        }
+    }
+
+    // Returns the call the share should run with, or null when the call was attached to an identical
+    // share and will be completed along with it
+    PluginCall join(String key, PluginCall call, long debounceMs) {
+        Flight flight;
+        synchronized (this) {
+            purgeExpired();
+            flight = flights.get(key);
+            if (flight == null) {
+                flight = new Flight(key, debounceMs);
+                flights.put(key, flight);
+                return new LeaderCall(call, flight);
+            }
+            if (!flight.done) {
+                flight.followers.add(call);
+                return null;
+            }
+        }
+        // Finished within its debounce window: replay the outcome outside the lock
+        flight.replay(call);
+        return null;
+    }
+
+    private void purgeExpired() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<Flight> iterator = flights.values().iterator();
+        while (iterator.hasNext()) {
+            Flight flight = iterator.next();
+            if (flight.done && now - flight.finishedAt >= flight.debounceMs) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private List<PluginCall> finish(Flight flight) {
+        synchronized (this) {
+            flight.done = true;
+            flight.finishedAt = SystemClock.elapsedRealtime();
+            if (flight.debounceMs <= 0) {
+                flights.remove(flight.key);
+            }
+            return new ArrayList<>(flight.followers);
+        }
+    }
+
+    private static class Flight {
+        final String key;
+        final long debounceMs;
+        final List<PluginCall> followers = new ArrayList<>();
+        boolean done = false;
+        long finishedAt;
+
+        // Outcome of the leading call
+        boolean rejected;
+        JSObject data;
+        String message;
+        String code;
+        Exception exception;
+
+        Flight(String key, long debounceMs) {
+            this.key = key;
+            this.debounceMs = debounceMs;
+        }
+
+        void replay(PluginCall call) {
+            if (rejected) {
+                call.reject(message, code, exception, data);
+            } else if (data != null) {
+                call.resolve(data);
+            } else {
+                call.resolve();
+            }
+        }
+    }
+
+    // Stands in for the first call of a flight: completes it and every call that joined while it ran.
+    // Only the first outcome counts, so a late reject after an error path has already settled the call is ignored.
+    private class LeaderCall extends PluginCall {
+        private final PluginCall call;
+        private final Flight flight;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        LeaderCall(PluginCall call, Flight flight) {
+            super(null, call.getPluginId(), call.getCallbackId(), call.getMethodName(), call.getData());
+            this.call = call;
+            this.flight = flight;
+        }
+
+        @Override
+        public void resolve() {
+            complete(false, null, null, null, null);
+        }
+
+        @Override
+        public void resolve(JSObject data) {
+            complete(false, data, null, null, null);
+        }
+
+        @Override
+        public void reject(String msg, String code, Exception ex, JSObject data) {
+            complete(true, data, msg, code, ex);
+        }
+
+        private void complete(boolean rejected, JSObject data, String message, String code, Exception exception) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            flight.rejected = rejected;
+            flight.data = data;
+            flight.message = message;
+            flight.code = code;
+            flight.exception = exception;
+
+            flight.replay(call);
+            for (PluginCall follower : finish(flight)) {
+                flight.replay(follower);
+            }
+        }
+    }
+}
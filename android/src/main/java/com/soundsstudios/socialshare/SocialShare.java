@@ -2,10 +2,8 @@ package com.soundsstudios.socialshare;
 
 import android.content.Intent;
 import android.net.Uri;
-import android.content.ContentValues;
-import android.provider.MediaStore;
-import android.os.Environment;
-import android.os.Build;
+import android.os.Trace;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.FileProvider;
 import android.util.Log;
@@ -18,33 +16,88 @@ import com.getcapacitor.JSObject;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import android.util.Base64;
 
 @CapacitorPlugin(name = "SocialShare")
 public class SocialShare extends Plugin {
 
+    private static final String[] STAGING_DIRECTORIES = { "temp_files", "videos", "transcoded", "segments", "gif_video" };
+
+    // Receiving apps read staged media after share() resolves, so it is only purged once it is a day old
+    private static final long STAGED_FILE_MAX_AGE_MS = 24L * 60 * 60 * 1000;
+
+    // Longest clip, in seconds, each duration-capped destination takes as a single status/story item
+    private static final int WHATSAPP_STATUS_SECONDS = 30;
+    private static final int INSTAGRAM_STORY_SECONDS = 60;
+    private static final int SNAPCHAT_SNAP_SECONDS = 60;
+
+    private PlatformProbe platformProbe;
+
+    private final ShareCoalescer coalescer = new ShareCoalescer();
+
+    private final PluginWarmup warmup = new PluginWarmup(new Runnable() {
+        @Override
+        public void run() {
+            // Report pooled buffers that are never released, but only while the app is being debugged
+            BufferPool.setLeakDetection(
+                    (getContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+
+            // Clear out stale staged media and prime the capability cache so the first share doesn't pay for it
+            for (String directory : STAGING_DIRECTORIES) {
+                staging(directory).purge(STAGED_FILE_MAX_AGE_MS);
+            }
+            platformProbe().probe(false);
+        }
+    });
+
+    // Runs during Capacitor bridge startup, so it must stay trivial: everything else is deferred to PluginWarmup
+    @Override
+    public void load() {
+        Trace.beginSection("SocialShare.load");
+        try {
+            warmup.scheduleAfterFirstFrame();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private StagingArea staging(String directory) {
+        return new StagingArea(new File(getContext().getCacheDir(), directory));
+    }
+
+    private synchronized PlatformProbe platformProbe() {
+        if (platformProbe == null) {
+            platformProbe = new PlatformProbe(getContext());
+        }
+        return platformProbe;
+    }
+
     // Helper method to save base64 data to temporary file
     private File saveBase64ToTempFile(String base64Data, String fileName, String extension) {
         try {
             byte[] decodedBytes = Base64.decode(base64Data, Base64.DEFAULT);
-            File tempDir = getContext().getCacheDir();
-            File tempFile = new File(tempDir, fileName + "." + extension);
-
-            FileOutputStream fos = new FileOutputStream(tempFile);
-            fos.write(decodedBytes);
-            fos.close();
-
-            return tempFile;
+            return staging("temp_files").write(decodedBytes, fileName, sniffExtension(decodedBytes, extension));
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    // Extension matching the decoded content, falling back to the caller's guess for unknown formats
+    private String sniffExtension(byte[] data, String fallback) {
+        MediaSniffer.Format format = MediaSniffer.sniff(data, Math.min(data.length, MediaSniffer.HEADER_SIZE));
+        return format == MediaSniffer.Format.UNKNOWN ? fallback : format.extension;
+    }
+
+    // Re-encode an image into the smallest format the platform accepts (see FormatNegotiator)
+    private File prepareImage(File imageFile, String platform) {
+        return new FormatNegotiator(staging("transcoded")).negotiate(imageFile, platform);
+    }
+
     // Helper method to get file from path or base64 data
     private File getFileFromPathOrData(String filePath, String fileData, String defaultName, String extension) {
         if (fileData != null && !fileData.isEmpty()) {
@@ -63,45 +116,69 @@ public class SocialShare extends Plugin {
 
     @PluginMethod
     public void share(PluginCall call) {
-        String platform = call.getString("platform");
-
-        switch (platform) {
-            case "instagram-stories":
-                shareToInstagramStories(call, call.getString("imagePath"), call.getString("contentURL"),
-                        call.getBoolean("saveToDevice", true));
-                break;
-            case "instagram":
-                shareToInstagram(call, call.getString("imagePath"), call.getBoolean("saveToDevice", false));
-                break;
-            case "facebook":
-                shareToFacebook(call);
-                break;
-            case "twitter":
-                shareToTwitter(call);
-                break;
-            case "tiktok":
-                shareToTikTok(call);
-                break;
-            case "whatsapp":
-                shareToWhatsApp(call);
-                break;
-            case "linkedin":
-                shareToLinkedIn(call);
-                break;
-            case "snapchat":
-                shareToSnapchat(call);
-                break;
-            case "telegram":
-                shareToTelegram(call);
-                break;
-            case "reddit":
-                shareToReddit(call);
-                break;
-            default:
-                shareToDefaultPlatform(call);
+        // No-op once warmed up; otherwise the first share starts it in the background
+        warmup.start();
+
+        // Identical shares (double taps) attach to the one already running instead of repeating it
+        PluginCall leader = coalescer.join(ShareCoalescer.keyFor(call), call, getConfig().getInt("debounceMs", 0));
+        if (leader == null) {
+            Log.d("SocialShare", "📱 Identical share already in progress, waiting for its result");
+            return;
+        }
+        call = leader;
+
+        String platform = call.getString("platform", "");
+
+        // The flight only ends when the leader settles, so nothing may escape without settling it; otherwise
+        // every identical share after this one would join a flight that never finishes
+        try {
+            switch (platform) {
+                case "instagram-stories":
+                    shareToInstagramStories(call, call.getString("imagePath"), call.getString("videoPath"),
+                            call.getString("contentURL"), call.getBoolean("saveToDevice", true));
+                    break;
+                case "instagram":
+                    shareToInstagram(call, call.getString("imagePath"), call.getBoolean("saveToDevice", false));
+                    break;
+                case "facebook":
+                    shareToFacebook(call);
+                    break;
+                case "twitter":
+                    shareToTwitter(call);
+                    break;
+                case "tiktok":
+                    shareToTikTok(call);
+                    break;
+                case "whatsapp":
+                    shareToWhatsApp(call);
+                    break;
+                case "linkedin":
+                    shareToLinkedIn(call);
+                    break;
+                case "snapchat":
+                    shareToSnapchat(call);
+                    break;
+                case "telegram":
+                    shareToTelegram(call);
+                    break;
+                case "reddit":
+                    shareToReddit(call);
+                    break;
+                default:
+                    shareToDefaultPlatform(call);
+            }
+        } catch (RuntimeException e) {
+            Log.e("SocialShare", "❌ Share failed: " + e.getMessage());
+            call.reject("Share failed: " + e.getMessage(), e);
         }
     }
 
+    // Install state, version and supported share intents for every known platform, in one pass
+    @PluginMethod
+    public void getPlatformCapabilities(PluginCall call) {
+        call.resolve(platformProbe().probe(call.getBoolean("refresh", false)));
+    }
+
     // Facebook sharing
     private void shareToFacebook(PluginCall call) {
         String title = call.getString("title", "");
@@ -111,16 +188,13 @@ public class SocialShare extends Plugin {
         String imagePath = call.getString("imagePath", "");
         String imageData = call.getString("imageData", "");
 
-        String shareText = text;
-        if (!url.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : " ") + url;
-        }
-        if (!hashtag.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : " ") + hashtag;
-        }
+        String shareText = CaptionComposer.facebook(text, url, hashtag);
 
         // Get image file from path or base64 data
         File imageFile = getFileFromPathOrData(imagePath, imageData, "facebook_image", "jpg");
+        if (imageFile != null) {
+            imageFile = prepareImage(imageFile, "facebook");
+        }
 
         // Try Facebook app first
         Intent facebookIntent = new Intent(Intent.ACTION_SEND);
@@ -145,51 +219,50 @@ public class SocialShare extends Plugin {
     }
 
     // Twitter/X sharing
-    private void shareToTwitter(PluginCall call) {
+    private void shareToTwitter(final PluginCall call) {
         String text = call.getString("text", "");
         String url = call.getString("url", "");
-        String imagePath = call.getString("imagePath", "");
+        final String imagePath = call.getString("imagePath", "");
 
         String[] hashtags = call.getArray("hashtags") != null
                 ? call.getArray("hashtags").toList().toArray(new String[0])
                 : new String[0];
         String via = call.getString("via", "");
 
-        String tweetText = text;
-        if (hashtags.length > 0) {
-            for (String hashtag : hashtags) {
-                tweetText += " #" + hashtag;
+        final String tweetText = CaptionComposer.twitter(text, hashtags, via, url);
+
+        convertGifIfRequested(call, imagePath, new ExportService.Callback<File>() {
+            @Override
+            public void onSuccess(File gifVideo) {
+                sendToTwitter(call, tweetText, imagePath, gifVideo);
             }
-        }
-        if (!via.isEmpty()) {
-            tweetText += " via @" + via;
-        }
-        if (!url.isEmpty()) {
-            tweetText += " " + url;
-        }
 
+            @Override
+            public void onError(Exception e) {
+                call.reject("Failed to convert GIF: " + e.getMessage());
+            }
+        });
+    }
+
+    private void sendToTwitter(PluginCall call, String tweetText, String imagePath, File gifVideo) {
         // Try Twitter app first
         Intent twitterIntent = new Intent(Intent.ACTION_SEND);
         twitterIntent.setType("text/plain");
         twitterIntent.setPackage("com.twitter.android");
         twitterIntent.putExtra(Intent.EXTRA_TEXT, tweetText);
 
-        if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Uri imageUri = Uri.fromFile(imageFile);
-                twitterIntent.setType("image/*");
-                twitterIntent.putExtra(Intent.EXTRA_STREAM, imageUri);
-                grantUriPermission("com.twitter.android", imageUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
-            }
+        String mediaType = gifVideo != null ? "video/*" : "image/*";
+        List<File> media = gifVideo != null ? Collections.singletonList(gifVideo) : preparedImage(imagePath, "twitter");
+        if (!media.isEmpty()) {
+            twitterIntent.setType(mediaType);
+            putStreams(twitterIntent, "com.twitter.android", media);
         }
 
         if (twitterIntent.resolveActivity(getContext().getPackageManager()) != null) {
-            getContext().startActivity(twitterIntent);
-            call.resolve();
+            launchShareTarget(call, "Open X to post", twitterIntent, null);
         } else {
-            // Fallback to generic share
-            shareWithSystemShare(tweetText, url, imagePath, call);
+            // Fallback to generic share, with the converted clip or transcoded image
+            shareWithSystemShare(tweetText, mediaType, media, call);
         }
     }
 
@@ -202,12 +275,7 @@ public class SocialShare extends Plugin {
         String videoPath = call.getString("videoPath", "");
         String imagePath = call.getString("imagePath", "");
 
-        String caption = text;
-        if (hashtags.length > 0) {
-            for (String hashtag : hashtags) {
-                caption += " #" + hashtag;
-            }
-        }
+        String caption = CaptionComposer.tiktok(text, hashtags);
 
         // Try TikTok app
         Intent tiktokIntent = new Intent(Intent.ACTION_SEND);
@@ -222,7 +290,7 @@ public class SocialShare extends Plugin {
                 grantUriPermission("com.zhiliaoapp.musically", videoUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
             }
         } else if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
+            File imageFile = prepareImage(new File(imagePath), "tiktok");
             if (imageFile.exists()) {
                 Uri imageUri = Uri.fromFile(imageFile);
                 tiktokIntent.setType("image/*");
@@ -244,28 +312,59 @@ public class SocialShare extends Plugin {
     }
 
     // WhatsApp sharing
-    private void shareToWhatsApp(PluginCall call) {
+    private void shareToWhatsApp(final PluginCall call) {
         String text = call.getString("text", "");
         String url = call.getString("url", "");
-        String phoneNumber = call.getString("phoneNumber", "");
-        String imagePath = call.getString("imagePath", "");
+        final String phoneNumber = call.getString("phoneNumber", "");
+        final String imagePath = call.getString("imagePath", "");
+        String videoPath = call.getString("videoPath", "");
 
-        String message = text;
-        if (!url.isEmpty()) {
-            message += (message.isEmpty() ? "" : " ") + url;
+        final String message = CaptionComposer.message(CaptionComposer.Target.WHATSAPP, text, url);
+
+        if (!videoPath.isEmpty() && new File(videoPath).exists()) {
+            // Chats take long videos, so splitting into Status-length parts is opt-in
+            segmentVideo(call, new File(videoPath), WHATSAPP_STATUS_SECONDS, false,
+                    new ExportService.Callback<List<File>>() {
+                        @Override
+                        public void onSuccess(List<File> parts) {
+                            sendToWhatsApp(call, message, phoneNumber, "", parts);
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            call.reject("Failed to split video: " + e.getMessage());
+                        }
+                    });
+            return;
         }
 
-        Intent whatsappIntent = new Intent(Intent.ACTION_SEND);
-        whatsappIntent.setPackage("com.whatsapp");
+        convertGifIfRequested(call, imagePath, new ExportService.Callback<File>() {
+            @Override
+            public void onSuccess(File gifVideo) {
+                if (gifVideo != null) {
+                    sendToWhatsApp(call, message, phoneNumber, "", Collections.singletonList(gifVideo));
+                } else {
+                    sendToWhatsApp(call, message, phoneNumber, imagePath, Collections.<File>emptyList());
+                }
+            }
 
-        if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Uri imageUri = Uri.fromFile(imageFile);
-                whatsappIntent.setType("image/*");
-                whatsappIntent.putExtra(Intent.EXTRA_STREAM, imageUri);
-                grantUriPermission("com.whatsapp", imageUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            @Override
+            public void onError(Exception e) {
+                call.reject("Failed to convert GIF: " + e.getMessage());
             }
+        });
+    }
+
+    private void sendToWhatsApp(PluginCall call, String message, String phoneNumber, String imagePath,
+            List<File> videos) {
+        Intent whatsappIntent = new Intent(videos.size() > 1 ? Intent.ACTION_SEND_MULTIPLE : Intent.ACTION_SEND);
+        whatsappIntent.setPackage("com.whatsapp");
+
+        String mediaType = !videos.isEmpty() ? "video/*" : "image/*";
+        List<File> media = !videos.isEmpty() ? videos : preparedImage(imagePath, "whatsapp");
+        if (!media.isEmpty()) {
+            whatsappIntent.setType(mediaType);
+            putStreams(whatsappIntent, "com.whatsapp", media);
         } else {
             whatsappIntent.setType("text/plain");
         }
@@ -277,11 +376,10 @@ public class SocialShare extends Plugin {
         }
 
         if (whatsappIntent.resolveActivity(getContext().getPackageManager()) != null) {
-            getContext().startActivity(whatsappIntent);
-            call.resolve();
+            launchShareTarget(call, "Open WhatsApp to send", whatsappIntent, null);
         } else {
-            // Fallback to web WhatsApp
-            shareWithSystemShare(message, url, imagePath, call);
+            // Fallback to generic share, with every video part or the transcoded image
+            shareWithSystemShare(message, mediaType, media, call);
         }
     }
 
@@ -292,55 +390,63 @@ public class SocialShare extends Plugin {
         String url = call.getString("url", "");
         String imagePath = call.getString("imagePath", "");
 
-        String shareText = title;
-        if (!text.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : "\n") + text;
-        }
-        if (!url.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : "\n") + url;
-        }
+        String shareText = CaptionComposer.post(CaptionComposer.Target.LINKEDIN, title, text, url, "");
 
         Intent linkedinIntent = new Intent(Intent.ACTION_SEND);
         linkedinIntent.setType("text/plain");
         linkedinIntent.setPackage("com.linkedin.android");
         linkedinIntent.putExtra(Intent.EXTRA_TEXT, shareText);
 
-        if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Uri imageUri = Uri.fromFile(imageFile);
-                linkedinIntent.setType("image/*");
-                linkedinIntent.putExtra(Intent.EXTRA_STREAM, imageUri);
-                grantUriPermission("com.linkedin.android", imageUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
-            }
+        List<File> media = preparedImage(imagePath, "linkedin");
+        if (!media.isEmpty()) {
+            linkedinIntent.setType("image/*");
+            putStreams(linkedinIntent, "com.linkedin.android", media);
         }
 
         if (linkedinIntent.resolveActivity(getContext().getPackageManager()) != null) {
             getContext().startActivity(linkedinIntent);
             call.resolve();
         } else {
-            shareWithSystemShare(shareText, url, imagePath, call);
+            shareWithSystemShare(shareText, "image/*", media, call);
         }
     }
 
     // Snapchat sharing
-    private void shareToSnapchat(PluginCall call) {
+    private void shareToSnapchat(final PluginCall call) {
         String imagePath = call.getString("imagePath", "");
         String videoPath = call.getString("videoPath", "");
 
-        Intent snapchatIntent = new Intent(Intent.ACTION_SEND);
-        snapchatIntent.setPackage("com.snapchat.android");
-
         if (!videoPath.isEmpty()) {
             File videoFile = new File(videoPath);
             if (videoFile.exists()) {
-                Uri videoUri = Uri.fromFile(videoFile);
-                snapchatIntent.setType("video/*");
-                snapchatIntent.putExtra(Intent.EXTRA_STREAM, videoUri);
-                grantUriPermission("com.snapchat.android", videoUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+                segmentVideo(call, videoFile, SNAPCHAT_SNAP_SECONDS, true, new ExportService.Callback<List<File>>() {
+                    @Override
+                    public void onSuccess(List<File> parts) {
+                        sendToSnapchat(call, "", parts);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        call.reject("Failed to split video: " + e.getMessage());
+                    }
+                });
+                return;
             }
+            imagePath = "";
+        }
+
+        sendToSnapchat(call, imagePath, Collections.<File>emptyList());
+    }
+
+    private void sendToSnapchat(PluginCall call, String imagePath, List<File> videos) {
+        Intent snapchatIntent = new Intent(videos.size() > 1 ? Intent.ACTION_SEND_MULTIPLE : Intent.ACTION_SEND);
+        snapchatIntent.setPackage("com.snapchat.android");
+
+        if (!videos.isEmpty()) {
+            snapchatIntent.setType("video/*");
+            putStreams(snapchatIntent, "com.snapchat.android", videos);
         } else if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
+            File imageFile = prepareImage(new File(imagePath), "snapchat");
             if (imageFile.exists()) {
                 Uri imageUri = Uri.fromFile(imageFile);
                 snapchatIntent.setType("image/*");
@@ -350,35 +456,42 @@ public class SocialShare extends Plugin {
         }
 
         if (snapchatIntent.resolveActivity(getContext().getPackageManager()) != null) {
-            getContext().startActivity(snapchatIntent);
-            call.resolve();
+            launchShareTarget(call, "Open Snapchat to send", snapchatIntent, null);
         } else {
             call.reject("Snapchat app is not installed");
         }
     }
 
     // Telegram sharing
-    private void shareToTelegram(PluginCall call) {
+    private void shareToTelegram(final PluginCall call) {
         String text = call.getString("text", "");
         String url = call.getString("url", "");
-        String imagePath = call.getString("imagePath", "");
+        final String imagePath = call.getString("imagePath", "");
 
-        String message = text;
-        if (!url.isEmpty()) {
-            message += (message.isEmpty() ? "" : "\n") + url;
-        }
+        final String message = CaptionComposer.message(CaptionComposer.Target.TELEGRAM, text, url);
+
+        convertGifIfRequested(call, imagePath, new ExportService.Callback<File>() {
+            @Override
+            public void onSuccess(File gifVideo) {
+                sendToTelegram(call, message, imagePath, gifVideo);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                call.reject("Failed to convert GIF: " + e.getMessage());
+            }
+        });
+    }
 
+    private void sendToTelegram(PluginCall call, String message, String imagePath, File gifVideo) {
         Intent telegramIntent = new Intent(Intent.ACTION_SEND);
         telegramIntent.setPackage("org.telegram.messenger");
 
-        if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Uri imageUri = Uri.fromFile(imageFile);
-                telegramIntent.setType("image/*");
-                telegramIntent.putExtra(Intent.EXTRA_STREAM, imageUri);
-                grantUriPermission("org.telegram.messenger", imageUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
-            }
+        String mediaType = gifVideo != null ? "video/*" : "image/*";
+        List<File> media = gifVideo != null ? Collections.singletonList(gifVideo) : preparedImage(imagePath, "telegram");
+        if (!media.isEmpty()) {
+            telegramIntent.setType(mediaType);
+            putStreams(telegramIntent, "org.telegram.messenger", media);
         } else {
             telegramIntent.setType("text/plain");
         }
@@ -386,10 +499,9 @@ public class SocialShare extends Plugin {
         telegramIntent.putExtra(Intent.EXTRA_TEXT, message);
 
         if (telegramIntent.resolveActivity(getContext().getPackageManager()) != null) {
-            getContext().startActivity(telegramIntent);
-            call.resolve();
+            launchShareTarget(call, "Open Telegram to send", telegramIntent, null);
         } else {
-            shareWithSystemShare(message, url, imagePath, call);
+            shareWithSystemShare(message, mediaType, media, call);
         }
     }
 
@@ -400,16 +512,7 @@ public class SocialShare extends Plugin {
         String url = call.getString("url", "");
         String subreddit = call.getString("subreddit", "");
 
-        String shareText = title;
-        if (!text.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : "\n") + text;
-        }
-        if (!url.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : "\n") + url;
-        }
-        if (!subreddit.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : "\n") + "r/" + subreddit;
-        }
+        String shareText = CaptionComposer.post(CaptionComposer.Target.REDDIT, title, text, url, subreddit);
 
         Intent redditIntent = new Intent(Intent.ACTION_SEND);
         redditIntent.setType("text/plain");
@@ -426,16 +529,19 @@ public class SocialShare extends Plugin {
 
     // Helper method for system share sheet
     private void shareWithSystemShare(String text, String url, String imagePath, PluginCall call) {
-        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        List<File> images = !imagePath.isEmpty() && new File(imagePath).exists()
+                ? Collections.singletonList(new File(imagePath))
+                : Collections.<File>emptyList();
+        shareWithSystemShare(text, "image/*", images, call);
+    }
 
-        if (!imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Uri imageUri = Uri.fromFile(imageFile);
-                shareIntent.setType("image/*");
-                shareIntent.putExtra(Intent.EXTRA_STREAM, imageUri);
-                grantUriPermission("*", imageUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
-            }
+    // System chooser carrying the media already prepared for the platform (converted clips, parts, transcoded images)
+    private void shareWithSystemShare(String text, String mediaType, List<File> media, PluginCall call) {
+        Intent shareIntent = new Intent(media.size() > 1 ? Intent.ACTION_SEND_MULTIPLE : Intent.ACTION_SEND);
+
+        if (!media.isEmpty()) {
+            shareIntent.setType(mediaType);
+            putStreams(shareIntent, "*", media);
         } else {
             shareIntent.setType("text/plain");
         }
@@ -443,8 +549,7 @@ public class SocialShare extends Plugin {
         shareIntent.putExtra(Intent.EXTRA_TEXT, text);
 
         if (shareIntent.resolveActivity(getContext().getPackageManager()) != null) {
-            getContext().startActivity(Intent.createChooser(shareIntent, "Share via"));
-            call.resolve();
+            launchShareTarget(call, "Choose an app to share with", Intent.createChooser(shareIntent, "Share via"), null);
         } else {
             call.reject("No app available to handle sharing");
         }
@@ -457,10 +562,7 @@ public class SocialShare extends Plugin {
         String url = call.getString("url", "");
         String imagePath = call.getString("imagePath", "");
 
-        String shareText = text;
-        if (!url.isEmpty()) {
-            shareText += (shareText.isEmpty() ? "" : " ") + url;
-        }
+        String shareText = CaptionComposer.message(CaptionComposer.Target.SYSTEM, text, url);
 
         shareWithSystemShare(shareText, url, imagePath, call);
     }
@@ -505,7 +607,7 @@ public class SocialShare extends Plugin {
 
         // Handle image-only sharing
         if (finalImagePath != null) {
-            File imageFile = new File(finalImagePath);
+            File imageFile = prepareImage(new File(finalImagePath), "instagram");
             Log.d("SocialShare", "📱 Checking image file: " + finalImagePath);
             Log.d("SocialShare", "   - File exists: " + imageFile.exists());
             Log.d("SocialShare", "   - File size: " + imageFile.length() + " bytes");
@@ -566,55 +668,21 @@ public class SocialShare extends Plugin {
         Log.d("SocialShare", "   - Share type: " + shareType);
 
         try {
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.Images.Media.DISPLAY_NAME, imageFile.getName());
-            values.put(MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                values.put(MediaStore.Images.Media.RELATIVE_PATH, Environment.DIRECTORY_PICTURES);
-                Log.d("SocialShare", "📱 Using scoped storage (Android Q+)");
-            } else {
-                Log.d("SocialShare", "📱 Using legacy storage");
-            }
-
-            Log.d("SocialShare", "📱 Inserting image into MediaStore");
-            Uri imageUri = getContext().getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    values);
-
-            if (imageUri != null) {
-                Log.d("SocialShare", "✅ MediaStore URI created: " + imageUri.toString());
-
-                OutputStream outputStream = getContext().getContentResolver().openOutputStream(imageUri);
-                FileInputStream inputStream = new FileInputStream(imageFile);
-
-                Log.d("SocialShare", "📱 Copying image data to Gallery");
-                byte[] buffer = new byte[1024];
-                int length;
-                long totalBytes = 0;
-                while ((length = inputStream.read(buffer)) > 0) {
-                    outputStream.write(buffer, 0, length);
-                    totalBytes += length;
+            Log.d("SocialShare", "📱 Copying image data to Gallery");
+            Uri imageUri = new GalleryExporter(getContext()).exportImage(imageFile, ProgressListener.NONE);
+
+            Log.d("SocialShare", "✅ Image saved to Gallery: " + imageUri.toString());
+            Log.d("SocialShare", "📱 Waiting 500ms for image processing...");
+
+            // Wait a moment for the image to be processed, then open Instagram app
+            new android.os.Handler().postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    Log.d("SocialShare", "📱 Opening Instagram app");
+                    openInstagramApp(call);
                 }
-
-                outputStream.close();
-                inputStream.close();
-
-                Log.d("SocialShare", "✅ Image saved to Gallery (" + totalBytes + " bytes)");
-                Log.d("SocialShare", "📱 Waiting 500ms for image processing...");
-
-                // Wait a moment for the image to be processed, then open Instagram app
-                new android.os.Handler().postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        Log.d("SocialShare", "📱 Opening Instagram app");
-                        openInstagramApp(call);
-                    }
-                }, 500); // 500ms delay
-            } else {
-                Log.e("SocialShare", "❌ Failed to create MediaStore URI");
-                call.reject("Failed to save image to gallery");
-            }
-        } catch (IOException e) {
+            }, 500); // 500ms delay
+        } catch (IOException | SecurityException e) {
             Log.e("SocialShare", "❌ Error saving image to gallery: " + e.getMessage());
             call.reject("Error saving image to gallery: " + e.getMessage());
         }
@@ -634,11 +702,11 @@ public class SocialShare extends Plugin {
             instagramIntent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
 
             Log.d("SocialShare", "✅ Opening Instagram app");
-            getContext().startActivity(instagramIntent);
-            call.resolve(new JSObject().put("status", "shared")
-                    .put("method", "instagram_app_open")
-                    .put("note",
-                            "Instagram opened. Content saved to gallery - tap + to create post and select your content."));
+            launchShareTarget(call, "Saved to Gallery - open Instagram to post", instagramIntent,
+                    new JSObject().put("status", "shared")
+                            .put("method", "instagram_app_open")
+                            .put("note",
+                                    "Instagram opened. Content saved to gallery - tap + to create post and select your content."));
         } else {
             Log.e("SocialShare", "❌ Instagram is not installed");
             call.reject("Instagram is not installed");
@@ -652,7 +720,7 @@ public class SocialShare extends Plugin {
             File videoFile = new File(videoPath);
             if (videoFile.exists()) {
                 if (saveToDevice) {
-                    saveVideoToGalleryAndShare(videoFile, call, "stories");
+                    saveVideoPartsToGalleryAndShare(videoFile, call);
                 } else {
                     shareVideoToInstagramStories(videoFile, contentURL, call);
                 }
@@ -666,7 +734,7 @@ public class SocialShare extends Plugin {
             return;
         }
 
-        File imageFile = new File(imagePath);
+        File imageFile = prepareImage(new File(imagePath), "instagram-stories");
         if (!imageFile.exists()) {
             call.reject("Image file does not exist");
             return;
@@ -679,7 +747,25 @@ public class SocialShare extends Plugin {
         }
     }
 
-    private void shareVideoToInstagramStories(File videoFile, String contentURL, PluginCall call) {
+    private void shareVideoToInstagramStories(File videoFile, final String contentURL, final PluginCall call) {
+        segmentVideo(call, videoFile, INSTAGRAM_STORY_SECONDS, true, new ExportService.Callback<List<File>>() {
+            @Override
+            public void onSuccess(List<File> parts) {
+                if (parts.size() == 1) {
+                    addVideoToInstagramStory(parts.get(0), contentURL, call);
+                } else {
+                    addVideoPartsToInstagramStory(parts, call);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                call.reject("Failed to split video: " + e.getMessage());
+            }
+        });
+    }
+
+    private void addVideoToInstagramStory(File videoFile, String contentURL, PluginCall call) {
         Uri videoUri = Uri.fromFile(videoFile);
 
         Intent shareIntent = new Intent("com.instagram.share.ADD_TO_STORY");
@@ -696,8 +782,22 @@ public class SocialShare extends Plugin {
                 Intent.FLAG_GRANT_READ_URI_PERMISSION);
 
         if (shareIntent.resolveActivity(getContext().getPackageManager()) != null) {
-            getContext().startActivity(shareIntent);
-            call.resolve();
+            launchShareTarget(call, "Open Instagram to add your story", shareIntent, null);
+        } else {
+            call.reject("Instagram Stories is not installed.");
+        }
+    }
+
+    // ADD_TO_STORY takes a single asset, so consecutive parts go through Instagram's multi-item share instead
+    private void addVideoPartsToInstagramStory(List<File> parts, PluginCall call) {
+        Intent shareIntent = new Intent(Intent.ACTION_SEND_MULTIPLE);
+        shareIntent.setType("video/*");
+        shareIntent.setPackage("com.instagram.android");
+        putStreams(shareIntent, "com.instagram.android", parts);
+
+        if (shareIntent.resolveActivity(getContext().getPackageManager()) != null) {
+            launchShareTarget(call, "Open Instagram to add your stories", shareIntent,
+                    new JSObject().put("parts", parts.size()));
         } else {
             call.reject("Instagram Stories is not installed.");
         }
@@ -727,48 +827,56 @@ public class SocialShare extends Plugin {
         }
     }
 
-    // Generic method to save video to gallery and open Instagram
-    private void saveVideoToGalleryAndShare(File videoFile, PluginCall call, String shareType) {
-        Log.d("SocialShare", "📱 Saving video to Gallery");
-        Log.d("SocialShare", "   - Video file: " + videoFile.getAbsolutePath());
-        Log.d("SocialShare", "   - Share type: " + shareType);
-        Log.d("SocialShare", "   - File size: " + videoFile.length() + " bytes");
-
-        try {
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.Video.Media.DISPLAY_NAME, videoFile.getName());
-            values.put(MediaStore.Video.Media.MIME_TYPE, "video/mp4");
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                values.put(MediaStore.Video.Media.RELATIVE_PATH, Environment.DIRECTORY_MOVIES);
-                Log.d("SocialShare", "📱 Using scoped storage (Android Q+) - Movies directory");
-            } else {
-                Log.d("SocialShare", "📱 Using legacy storage");
+    // Stories cut long videos into story-length parts, and that applies when they go through the Gallery too
+    private void saveVideoPartsToGalleryAndShare(File videoFile, final PluginCall call) {
+        segmentVideo(call, videoFile, INSTAGRAM_STORY_SECONDS, true, new ExportService.Callback<List<File>>() {
+            @Override
+            public void onSuccess(List<File> parts) {
+                saveVideoToGalleryAndShare(parts, call, "stories");
             }
 
-            Log.d("SocialShare", "📱 Inserting video into MediaStore");
-            Uri videoUri = getContext().getContentResolver().insert(MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    values);
-
-            if (videoUri != null) {
-                Log.d("SocialShare", "✅ MediaStore URI created: " + videoUri.toString());
+            @Override
+            public void onError(Exception e) {
+                call.reject("Failed to split video: " + e.getMessage());
+            }
+        });
+    }
 
-                OutputStream outputStream = getContext().getContentResolver().openOutputStream(videoUri);
-                FileInputStream inputStream = new FileInputStream(videoFile);
+    // Generic method to save videos to gallery (in order) and open Instagram
+    private void saveVideoToGalleryAndShare(final List<File> videoFiles, final PluginCall call, String shareType) {
+        long totalBytes = 0;
+        for (File videoFile : videoFiles) {
+            totalBytes += videoFile.length();
+        }
+        final long total = totalBytes;
+        Log.d("SocialShare", "📱 Saving video to Gallery");
+        Log.d("SocialShare", "   - Video files: " + videoFiles);
+        Log.d("SocialShare", "   - Share type: " + shareType);
+        Log.d("SocialShare", "   - File size: " + total + " bytes");
 
+        runExportTask(call, "Saving video to Gallery", new ExportService.Task<List<Uri>>() {
+            @Override
+            public List<Uri> run(final ProgressListener progress) throws Exception {
                 Log.d("SocialShare", "📱 Copying video data to Gallery");
-                byte[] buffer = new byte[1024];
-                int length;
-                long totalBytes = 0;
-                while ((length = inputStream.read(buffer)) > 0) {
-                    outputStream.write(buffer, 0, length);
-                    totalBytes += length;
+                GalleryExporter exporter = new GalleryExporter(getContext());
+                List<Uri> uris = new ArrayList<>(videoFiles.size());
+                long exported = 0;
+                for (File videoFile : videoFiles) {
+                    final long done = exported;
+                    uris.add(exporter.exportVideo(videoFile, new ProgressListener() {
+                        @Override
+                        public void onProgress(long completed, long ignored) {
+                            progress.onProgress(done + completed, total);
+                        }
+                    }));
+                    exported += videoFile.length();
                 }
-
-                outputStream.close();
-                inputStream.close();
-
-                Log.d("SocialShare", "✅ Video saved to Gallery (" + totalBytes + " bytes)");
+                return uris;
+            }
+        }, new ExportService.Callback<List<Uri>>() {
+            @Override
+            public void onSuccess(List<Uri> videoUris) {
+                Log.d("SocialShare", "✅ Video saved to Gallery: " + videoUris);
                 Log.d("SocialShare", "📱 Waiting 1000ms for video processing...");
 
                 // Wait a moment for the video to be processed, then open Instagram app
@@ -779,14 +887,15 @@ public class SocialShare extends Plugin {
                         openInstagramApp(call);
                     }
                 }, 1000); // 1000ms delay for video processing
-            } else {
-                Log.e("SocialShare", "❌ Failed to create MediaStore URI for video");
-                call.reject("Failed to save video to gallery");
             }
-        } catch (IOException e) {
-            Log.e("SocialShare", "❌ Error saving video to gallery: " + e.getMessage());
-            call.reject("Error saving video to gallery: " + e.getMessage());
-        }
+
+            @Override
+            public void onError(Exception e) {
+                // Progress is journaled, so retrying the same file resumes where this attempt stopped
+                Log.e("SocialShare", "❌ Error saving video to gallery: " + e.getMessage());
+                call.reject("Error saving video to gallery: " + e.getMessage());
+            }
+        });
     }
 
     // Helper method to get file path from path or base64 data
@@ -813,17 +922,7 @@ public class SocialShare extends Plugin {
 
             byte[] decodedBytes = android.util.Base64.decode(cleanBase64, android.util.Base64.DEFAULT);
 
-            File tempDir = new File(getContext().getCacheDir(), "temp_files");
-            if (!tempDir.exists()) {
-                tempDir.mkdirs();
-            }
-
-            String fileName = "temp_" + System.currentTimeMillis() + "." + extension;
-            File tempFile = new File(tempDir, fileName);
-
-            FileOutputStream fos = new FileOutputStream(tempFile);
-            fos.write(decodedBytes);
-            fos.close();
+            File tempFile = staging("temp_files").write(decodedBytes, "temp", sniffExtension(decodedBytes, extension));
 
             Log.d("SocialShare", "✅ Base64 data saved to temp file: " + tempFile.getAbsolutePath());
             return tempFile.getAbsolutePath();
@@ -834,14 +933,41 @@ public class SocialShare extends Plugin {
     }
 
     // Create video from image and audio (Android implementation)
-    private void createVideoFromImageAndAudio(File imageFile, File audioFile, String backgroundColor,
-            Double startTime, Boolean saveToDevice, PluginCall call) {
+    private void createVideoFromImageAndAudio(final File imageFile, final File audioFile, String backgroundColor,
+            Double startTime, final Boolean saveToDevice, final PluginCall call) {
         Log.d("SocialShare", "📱 Starting video creation from image + audio");
         Log.d("SocialShare", "   - Image file: " + imageFile.getAbsolutePath());
         Log.d("SocialShare", "   - Audio file: " + audioFile.getAbsolutePath());
         Log.d("SocialShare", "   - Background color: " + backgroundColor);
         Log.d("SocialShare", "   - Start time: " + startTime);
 
+        runExportTask(call, "Creating video", new ExportService.Task<File>() {
+            @Override
+            public File run(ProgressListener progress) throws Exception {
+                return encodeVideo(imageFile, audioFile, progress);
+            }
+        }, new ExportService.Callback<File>() {
+            @Override
+            public void onSuccess(File outputFile) {
+                // Now share the video
+                if (saveToDevice) {
+                    Log.d("SocialShare", "📱 Saving video to Gallery and opening Instagram");
+                    saveVideoToGalleryAndShare(Collections.singletonList(outputFile), call, "instagram");
+                } else {
+                    Log.d("SocialShare", "📱 Sharing video directly to Instagram");
+                    shareVideoToInstagramDirectly(outputFile, call);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("SocialShare", "❌ Error creating video from image and audio: " + e.getMessage());
+                call.reject("Failed to create video from image and audio: " + e.getMessage());
+            }
+        });
+    }
+
+    private File encodeVideo(File imageFile, File audioFile, ProgressListener progress) throws IOException {
         // For Android, we'll use a simplified approach:
         // Create a video file by combining the image and audio using
         // MediaMetadataRetriever and MediaMuxer
@@ -849,50 +975,181 @@ public class SocialShare extends Plugin {
         // implementation
         // that creates a simple video file and then shares it
 
-        try {
-            // Create output file
-            File outputDir = new File(getContext().getCacheDir(), "videos");
-            if (!outputDir.exists()) {
-                outputDir.mkdirs();
-            }
+        // For now, we'll create a simple video by copying the audio file
+        // In a full implementation, you would use MediaMuxer to combine image and audio
+        // This is a simplified version that at least gets the audio file ready
 
-            String outputFileName = "instagram_video_" + System.currentTimeMillis() + ".mp4";
-            File outputFile = new File(outputDir, outputFileName);
+        // Copy audio file to a uniquely named output with mp4 extension
+        File outputFile;
+        try (FileInputStream fis = new FileInputStream(audioFile)) {
+            outputFile = staging("videos").write(fis, "instagram_video", "mp4", progress, audioFile.length());
+        }
 
-            Log.d("SocialShare", "📱 Video output path: " + outputFile.getAbsolutePath());
+        Log.d("SocialShare", "✅ Video creation completed (simplified): " + outputFile.getAbsolutePath());
+        return outputFile;
+    }
+
+    // Cut a video that runs longer than the destination's clip limit into keyframe-aligned parts without
+    // re-encoding. splitVideo and segmentDuration (seconds) override the per-platform defaults; videos that
+    // already fit, or calls that opt out, are passed through as a single part.
+    private void segmentVideo(PluginCall call, final File videoFile, int defaultSeconds, boolean splitByDefault,
+            ExportService.Callback<List<File>> callback) {
+        if (!call.getBoolean("splitVideo", splitByDefault)) {
+            callback.onSuccess(Collections.singletonList(videoFile));
+            return;
+        }
+        final long limitUs = (long) (call.getDouble("segmentDuration", (double) defaultSeconds) * 1000000);
+        if (limitUs <= 0) {
+            callback.onSuccess(Collections.singletonList(videoFile));
+            return;
+        }
 
-            // For now, we'll create a simple video by copying the audio file
-            // In a full implementation, you would use MediaMuxer to combine image and audio
-            // This is a simplified version that at least gets the audio file ready
+        runExportTask(call, "Splitting video", new ExportService.Task<List<File>>() {
+            @Override
+            public List<File> run(ProgressListener progress) throws Exception {
+                return new VideoSegmenter(staging("segments")).split(videoFile, limitUs, progress);
+            }
+        }, callback);
+    }
 
-            // Copy audio file to output location with mp4 extension
-            FileInputStream fis = new FileInputStream(audioFile);
-            FileOutputStream fos = new FileOutputStream(outputFile);
+    // With convertGif: true, an animated GIF is converted to MP4 (see GifTranscoder) and the callback gets the
+    // clip. It gets null when the image should be shared as is: not a GIF, a single frame, or a failed conversion.
+    private void convertGifIfRequested(PluginCall call, String imagePath, ExportService.Callback<File> callback) {
+        final File gif = imagePath.isEmpty() ? null : new File(imagePath);
+        if (gif == null || !call.getBoolean("convertGif", false)
+                || MediaSniffer.sniff(gif) != MediaSniffer.Format.GIF) {
+            callback.onSuccess(null);
+            return;
+        }
 
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = fis.read(buffer)) > 0) {
-                fos.write(buffer, 0, length);
+        runExportTask(call, "Converting GIF", new ExportService.Task<File>() {
+            @Override
+            public File run(ProgressListener progress) {
+                try {
+                    return new GifTranscoder(staging("gif_video")).convert(gif, progress);
+                } catch (IOException | RuntimeException e) {
+                    Log.e("SocialShare", "❌ GIF conversion failed, sharing the GIF instead: " + e.getMessage());
+                    return null;
+                }
             }
+        }, callback);
+    }
+
+    // Attach one or more files to a share intent; more than one requires ACTION_SEND_MULTIPLE
+    private void putStreams(Intent intent, String packageName, List<File> files) {
+        ArrayList<Uri> uris = new ArrayList<>();
+        for (File file : files) {
+            Uri fileUri = Uri.fromFile(file);
+            grantUriPermission(packageName, fileUri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            uris.add(fileUri);
+        }
+        if (uris.size() == 1) {
+            intent.putExtra(Intent.EXTRA_STREAM, uris.get(0));
+        } else {
+            intent.putParcelableArrayListExtra(Intent.EXTRA_STREAM, uris);
+        }
+    }
 
-            fis.close();
-            fos.close();
+    // The image negotiated for the platform, or nothing when there is no image to attach
+    private List<File> preparedImage(String imagePath, String platform) {
+        if (imagePath.isEmpty()) {
+            return Collections.emptyList();
+        }
+        File imageFile = prepareImage(new File(imagePath), platform);
+        return imageFile.exists() ? Collections.singletonList(imageFile) : Collections.<File>emptyList();
+    }
 
-            Log.d("SocialShare", "✅ Video creation completed (simplified): " + outputFile.getAbsolutePath());
+    // Open the share target and resolve with `result` (or nothing). A background export can finish while the
+    // user is in another app, where Android 10+ blocks activity starts; the target is then offered through a
+    // notification and the call resolves as "notified" rather than "shared".
+    private void launchShareTarget(PluginCall call, String notificationText, Intent intent, JSObject result) {
+        try {
+            if (call.getBoolean("background", false) && !getBridge().getApp().isActive()) {
+                Log.d("SocialShare", "📱 App is in the background, offering the share target as a notification");
+                ExportService.notifyReady(getContext(), notificationText, intent);
+                call.resolve(new JSObject().put("status", "notified")
+                        .put("method", "notification")
+                        .put("note", "The app was in the background; tapping the notification opens the share target."));
+                return;
+            }
+            getContext().startActivity(intent);
+        } catch (RuntimeException e) {
+            Log.e("SocialShare", "❌ Unable to open share target: " + e.getMessage());
+            call.reject("Unable to open share target: " + e.getMessage());
+            return;
+        }
+        if (result != null) {
+            call.resolve(result);
+        } else {
+            call.resolve();
+        }
+    }
 
-            // Now share the video
-            if (saveToDevice) {
-                Log.d("SocialShare", "📱 Saving video to Gallery and opening Instagram");
-                saveVideoToGalleryAndShare(outputFile, call, "instagram");
-            } else {
-                Log.d("SocialShare", "📱 Sharing video directly to Instagram");
-                shareVideoToInstagramDirectly(outputFile, call);
+    // Run an encode/export job. With background: true it runs inside ExportService so it keeps
+    // foreground priority while the user switches apps; otherwise it runs inline as before.
+    private <T> void runExportTask(final PluginCall call, final String title, final ExportService.Task<T> job,
+            final ExportService.Callback<T> callback) {
+        ExportService.Task<T> task = new ExportService.Task<T>() {
+            @Override
+            public T run(ProgressListener progress) throws Exception {
+                try {
+                    return job.run(progress);
+                } finally {
+                    Log.d("SocialShare", "📱 Buffer pool after " + title + ": " + BufferPool.hits() + " hits, "
+                            + BufferPool.misses() + " misses, " + BufferPool.leaks() + " leaks");
+                }
             }
+        };
+        ProgressListener progress = new ProgressListener() {
+            private int lastPercent = -1;
+
+            @Override
+            public void onProgress(long completed, long total) {
+                int percent = total > 0 ? (int) (completed * 100 / total) : 0;
+                if (percent != lastPercent) {
+                    lastPercent = percent;
+                    notifyListeners("exportProgress", new JSObject().put("task", title)
+                            .put("completed", completed)
+                            .put("total", total)
+                            .put("percent", percent));
+                }
+            }
+        };
+
+        if (call.getBoolean("background", false)) {
+            Log.d("SocialShare", "📱 Running in background export service: " + title);
+            // The callback runs later on the main thread, outside share()'s catch, so it settles the call itself
+            ExportService.enqueue(getContext(), title, task, progress, new ExportService.Callback<T>() {
+                @Override
+                public void onSuccess(T result) {
+                    try {
+                        callback.onSuccess(result);
+                    } catch (RuntimeException e) {
+                        Log.e("SocialShare", "❌ Share failed after " + title + ": " + e.getMessage());
+                        call.reject("Share failed: " + e.getMessage(), e);
+                    }
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    try {
+                        callback.onError(e);
+                    } catch (RuntimeException failure) {
+                        call.reject("Share failed: " + failure.getMessage(), failure);
+                    }
+                }
+            });
+            return;
+        }
 
+        T result;
+        try {
+            result = task.run(progress);
         } catch (Exception e) {
-            Log.e("SocialShare", "❌ Error creating video from image and audio: " + e.getMessage());
-            call.reject("Failed to create video from image and audio: " + e.getMessage());
+            callback.onError(e);
+            return;
         }
+        callback.onSuccess(result);
     }
 
     // Share video directly to Instagram
@@ -916,10 +1173,10 @@ public class SocialShare extends Plugin {
 
         if (shareIntent.resolveActivity(getContext().getPackageManager()) != null) {
             Log.d("SocialShare", "✅ Opening Instagram with native sharing interface for video");
-            getContext().startActivity(shareIntent);
-            call.resolve(new JSObject().put("status", "shared")
-                    .put("method", "instagram_intent")
-                    .put("note", "Instagram sharing interface opened with native picker for video"));
+            launchShareTarget(call, "Open Instagram to share your video", shareIntent,
+                    new JSObject().put("status", "shared")
+                            .put("method", "instagram_intent")
+                            .put("note", "Instagram sharing interface opened with native picker for video"));
         } else {
             Log.e("SocialShare", "❌ Instagram is not installed");
             call.reject("Instagram is not installed.");
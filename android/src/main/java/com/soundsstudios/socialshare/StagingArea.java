@@ -0,0 +1,125 @@
+package com.soundsstudios.socialshare;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+// Cache directory where shared media is staged before being handed to other
+// apps. Every call gets its own file name (reserved atomically through
+// File.createTempFile), and content is written to a ".part" sibling that is
+// renamed over the reserved name only once complete. Concurrent shares can
+// therefore never overwrite each other's media, and a reader never sees a
+// half-written file. Files are kept until purge() because receiving apps
+// read them asynchronously after the share intent has been sent.
+final class StagingArea {
+
+    static final String PART_SUFFIX = ".part";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final File root;
+
+    StagingArea(File root) {
+        this.root = root;
+    }
+
+    // Reserve a unique, empty file named <prefix>_<random>.<extension>
+    File reserve(String prefix, String extension) throws IOException {
+        if (!root.exists() && !root.mkdirs() && !root.isDirectory()) {
+            throw new IOException("Unable to create staging directory " + root);
+        }
+        return File.createTempFile(prefix + "_", "." + extension, root);
+    }
+
+    // Fixed name for content-addressed entries that are reused across calls. Produce the content under a
+    // reserved name first and rename it here, so the keyed file only ever appears complete.
+    File keyed(String key, String extension) {
+        return new File(root, key + "." + extension);
+    }
+
+    // Where to write content for a reserved file before committing it
+    File pending(File target) {
+        return new File(target.getParentFile(), target.getName() + PART_SUFFIX);
+    }
+
+    // Atomically publish pending content under the reserved name
+    void commit(File pending, File target) throws IOException {
+        if (!pending.renameTo(target)) {
+            abort(pending, target);
+            throw new IOException("Unable to move staged file into place: " + target.getName());
+        }
+    }
+
+    // Drop a reservation whose content could not be produced
+    void abort(File pending, File target) {
+        pending.delete();
+        target.delete();
+    }
+
+    File write(byte[] data, String prefix, String extension) throws IOException {
+        File target = reserve(prefix, extension);
+        File pending = pending(target);
+        try (OutputStream out = new FileOutputStream(pending)) {
+            out.write(data);
+        } catch (IOException e) {
+            abort(pending, target);
+            throw e;
+        }
+        commit(pending, target);
+        return target;
+    }
+
+    File write(InputStream in, String prefix, String extension, ProgressListener progress, long expectedBytes)
+            throws IOException {
+        File target = reserve(prefix, extension);
+        File pending = pending(target);
+        // File sources are read through their channel so bytes move between the files without a heap copy
+        ReadableByteChannel source = in instanceof FileInputStream
+                ? ((FileInputStream) in).getChannel()
+                : Channels.newChannel(in);
+        try (BufferPool.Lease lease = BufferPool.acquire(COPY_BUFFER_SIZE);
+                FileOutputStream out = new FileOutputStream(pending)) {
+            ByteBuffer buffer = lease.buffer();
+            FileChannel channel = out.getChannel();
+            long totalBytes = 0;
+            int length;
+            while ((length = source.read(buffer)) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+                totalBytes += length;
+                progress.onProgress(totalBytes, expectedBytes);
+            }
+        } catch (IOException e) {
+            abort(pending, target);
+            throw e;
+        }
+        commit(pending, target);
+        return target;
+    }
+
+    // Delete staged files, including .part leftovers of writes that never finished, older than maxAgeMs
+    int purge(long maxAgeMs) {
+        File[] files = root.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+        int deleted = 0;
+        for (File file : files) {
+            if (file.isFile() && file.lastModified() < cutoff && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
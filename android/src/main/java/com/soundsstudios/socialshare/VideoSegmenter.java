@@ -0,0 +1,235 @@
+package com.soundsstudios.socialshare;
+
+import android.annotation.SuppressLint;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Splits a video into consecutive parts no longer than a platform's clip limit
+// without re-encoding. Cuts are placed on video sync frames, so every part
+// starts with a keyframe and the samples are copied as-is through MediaMuxer.
+// Each part is remuxed on its own thread with its own extractor and muxer.
+class VideoSegmenter {
+
+    private static final int DEFAULT_SAMPLE_BUFFER_SIZE = 1024 * 1024;
+
+    private final StagingArea staging;
+
+    VideoSegmenter(StagingArea staging) {
+        this.staging = staging;
+    }
+
+    // Returns the source itself when it already fits, otherwise the parts in playback order
+    List<File> split(final File source, long maxDurationUs, final ProgressListener progress) throws IOException {
+        final List<long[]> ranges = planCuts(source, maxDurationUs);
+        if (ranges.size() <= 1) {
+            return Collections.singletonList(source);
+        }
+        Log.d("SocialShare", "📱 Splitting " + source.getName() + " into " + ranges.size() + " parts");
+
+        int threads = Math.min(ranges.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicInteger finished = new AtomicInteger();
+        List<Future<File>> parts = new ArrayList<>();
+        try {
+            for (final long[] range : ranges) {
+                parts.add(executor.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws IOException {
+                        File part = remux(source, range[0], range[1]);
+                        // Listeners aren't thread-safe; report in order, one thread at a time
+                        synchronized (finished) {
+                            progress.onProgress(finished.incrementAndGet(), ranges.size());
+                        }
+                        return part;
+                    }
+                }));
+            }
+
+            List<File> files = new ArrayList<>(parts.size());
+            for (Future<File> part : parts) {
+                files.add(part.get());
+            }
+            return files;
+        } catch (InterruptedException | ExecutionException e) {
+            for (Future<File> part : parts) {
+                part.cancel(true);
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Failed to split video: " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // [start, end) ranges in microseconds, each starting on a sync frame
+    private static List<long[]> planCuts(File source, long maxDurationUs) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(source.getAbsolutePath());
+            int videoTrack = findTrack(extractor, "video/");
+            if (videoTrack < 0) {
+                throw new IOException("No video track in " + source.getName());
+            }
+            MediaFormat format = extractor.getTrackFormat(videoTrack);
+            long duration = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+
+            List<long[]> ranges = new ArrayList<>();
+            if (duration <= maxDurationUs) {
+                ranges.add(new long[] { 0, Long.MAX_VALUE });
+                return ranges;
+            }
+
+            extractor.selectTrack(videoTrack);
+            long start = 0;
+            while (start + maxDurationUs < duration) {
+                // Latest keyframe that keeps this part within the limit
+                extractor.seekTo(start + maxDurationUs, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+                long cut = extractor.getSampleTime();
+                if (cut <= start) {
+                    // Keyframe interval longer than the limit: the part has to run to the next keyframe
+                    extractor.seekTo(start + 1, MediaExtractor.SEEK_TO_NEXT_SYNC);
+                    cut = extractor.getSampleTime();
+                }
+                if (cut <= start || cut < 0) {
+                    break;
+                }
+                ranges.add(new long[] { start, cut });
+                start = cut;
+            }
+            ranges.add(new long[] { start, Long.MAX_VALUE });
+            return ranges;
+        } finally {
+            extractor.release();
+        }
+    }
+
+    @SuppressLint("WrongConstant")
+    private File remux(File source, long startUs, long endUs) throws IOException {
+        File output = staging.reserve("segment", "mp4");
+        File pending = staging.pending(output);
+
+        MediaExtractor extractor = new MediaExtractor();
+        MediaMuxer muxer = null;
+        BufferPool.Lease lease = null;
+        boolean muxerStarted = false;
+        try {
+            extractor.setDataSource(source.getAbsolutePath());
+            muxer = new MediaMuxer(pending.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+
+            int trackCount = extractor.getTrackCount();
+            int[] muxerTracks = new int[trackCount];
+            int selectedTracks = 0;
+            int bufferSize = DEFAULT_SAMPLE_BUFFER_SIZE;
+            for (int i = 0; i < trackCount; i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mime = format.getString(MediaFormat.KEY_MIME);
+                muxerTracks[i] = -1;
+                if (mime == null || !(mime.startsWith("video/") || mime.startsWith("audio/"))) {
+                    continue;
+                }
+                extractor.selectTrack(i);
+                selectedTracks++;
+                muxerTracks[i] = muxer.addTrack(format);
+                if (format.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)) {
+                    bufferSize = Math.max(bufferSize, format.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE));
+                }
+                if (mime.startsWith("video/") && format.containsKey("rotation-degrees")) {
+                    muxer.setOrientationHint(format.getInteger("rotation-degrees"));
+                }
+            }
+
+            muxer.start();
+            muxerStarted = true;
+
+            lease = BufferPool.acquire(bufferSize);
+            ByteBuffer buffer = lease.buffer();
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean[] ended = new boolean[trackCount];
+            extractor.seekTo(startUs, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+            while (selectedTracks > 0) {
+                int trackIndex = extractor.getSampleTrackIndex();
+                if (trackIndex < 0) {
+                    break;
+                }
+                long time = extractor.getSampleTime();
+                // Tracks are interleaved, so audio before the cut can still follow the first video sample past it.
+                // A track stays ended once it has passed the cut: later reordered frames belong to the next part.
+                if (ended[trackIndex] || time >= endUs) {
+                    if (!ended[trackIndex]) {
+                        ended[trackIndex] = true;
+                        selectedTracks--;
+                    }
+                    extractor.advance();
+                    continue;
+                }
+                int track = muxerTracks[trackIndex];
+                // Audio may be interleaved slightly ahead of the keyframe the part starts on
+                if (track >= 0 && time >= startUs) {
+                    int size = extractor.readSampleData(buffer, 0);
+                    if (size < 0) {
+                        break;
+                    }
+                    info.offset = 0;
+                    info.size = size;
+                    info.presentationTimeUs = time - startUs;
+                    info.flags = (extractor.getSampleFlags() & MediaExtractor.SAMPLE_FLAG_SYNC) != 0
+                            ? MediaCodec.BUFFER_FLAG_KEY_FRAME
+                            : 0;
+                    muxer.writeSampleData(track, buffer, info);
+                }
+                extractor.advance();
+            }
+
+            muxer.stop();
+            muxerStarted = false;
+            muxer.release();
+            muxer = null;
+            staging.commit(pending, output);
+            return output;
+        } catch (IOException | RuntimeException e) {
+            staging.abort(pending, output);
+            throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        } finally {
+            if (muxer != null) {
+                try {
+                    if (muxerStarted) {
+                        muxer.stop();
+                    }
+                } catch (IllegalStateException ignored) {
+                    // Already failing; the partial output is discarded above
+                }
+                muxer.release();
+            }
+            if (lease != null) {
+                lease.close();
+            }
+            extractor.release();
+        }
+    }
+
+    private static int findTrack(MediaExtractor extractor, String mimePrefix) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            String mime = extractor.getTrackFormat(i).getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith(mimePrefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,177 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 2000;
+
+    @After
+    public void tearDown() {
+        BufferPool.setLeakDetection(false);
+    }
+
+    @Test
+    public void sizeClassesArePowersOfTwo() {
+        assertEquals(0, BufferPool.sizeClass(0));
+        assertEquals(0, BufferPool.sizeClass(4096));
+        assertEquals(1, BufferPool.sizeClass(4097));
+        assertEquals(8, BufferPool.sizeClass(1024 * 1024));
+        assertEquals(11, BufferPool.sizeClass(8 * 1024 * 1024));
+        assertEquals(-1, BufferPool.sizeClass(8 * 1024 * 1024 + 1));
+    }
+
+    @Test
+    public void leasedBuffersAreDirectAndSizedToTheRequest() {
+        try (BufferPool.Lease lease = BufferPool.acquire(5000)) {
+            ByteBuffer buffer = lease.buffer();
+            assertTrue(buffer.isDirect());
+            assertEquals(0, buffer.position());
+            assertEquals(5000, buffer.limit());
+            assertEquals(8192, buffer.capacity());
+        }
+    }
+
+    @Test
+    public void releasedBuffersAreReused() {
+        ByteBuffer first;
+        try (BufferPool.Lease lease = BufferPool.acquire(200 * 1024)) {
+            first = lease.buffer();
+            first.put((byte) 1);
+        }
+
+        long hits = BufferPool.hits();
+        try (BufferPool.Lease lease = BufferPool.acquire(150 * 1024)) {
+            assertSame(first, lease.buffer());
+            assertEquals(0, lease.buffer().position());
+        }
+        assertEquals(hits + 1, BufferPool.hits());
+    }
+
+    @Test
+    public void oversizedRequestsAreNotPooled() {
+        int size = 9 * 1024 * 1024;
+        long misses = BufferPool.misses();
+        ByteBuffer first;
+        try (BufferPool.Lease lease = BufferPool.acquire(size)) {
+            first = lease.buffer();
+            assertEquals(size, first.capacity());
+        }
+        try (BufferPool.Lease lease = BufferPool.acquire(size)) {
+            assertTrue(first != lease.buffer());
+        }
+        assertEquals(misses + 2, BufferPool.misses());
+    }
+
+    @Test
+    public void releasedLeaseCannotBeUsed() {
+        BufferPool.Lease lease = BufferPool.acquire(1024);
+        lease.close();
+        lease.close();
+        try {
+            lease.buffer();
+            fail("buffer() after close() should throw");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void retainedMemoryStaysWithinBudget() {
+        List<BufferPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            leases.add(BufferPool.acquire(8 * 1024 * 1024));
+        }
+        for (BufferPool.Lease lease : leases) {
+            lease.close();
+        }
+        assertTrue(BufferPool.retainedBytes() <= BufferPool.RETAINED_BUDGET);
+
+        // Take the large buffers back out so the budget doesn't affect other tests
+        for (int i = 0; i < BufferPool.SLOTS_PER_CLASS; i++) {
+            BufferPool.acquire(8 * 1024 * 1024);
+        }
+    }
+
+    @Test
+    public void concurrentLeasesNeverShareABuffer() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int id = t;
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int round = 0; round < ROUNDS; round++) {
+                            try (BufferPool.Lease lease = BufferPool.acquire(64 * 1024)) {
+                                ByteBuffer buffer = lease.buffer();
+                                long stamp = ((long) id << 32) | round;
+                                buffer.putLong(0, stamp);
+                                buffer.putLong(buffer.limit() - 8, stamp);
+                                Thread.yield();
+                                assertEquals(stamp, buffer.getLong(0));
+                                assertEquals(stamp, buffer.getLong(buffer.limit() - 8));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void steadyStateCopiesDoNotAllocate() {
+        long misses = BufferPool.misses();
+        for (int i = 0; i < ROUNDS; i++) {
+            try (BufferPool.Lease lease = BufferPool.acquire(1024 * 1024)) {
+                lease.buffer().put((byte) i);
+            }
+        }
+        assertTrue(BufferPool.misses() - misses <= 1);
+    }
+
+    @Test
+    public void unreleasedLeasesAreReported() throws InterruptedException {
+        BufferPool.setLeakDetection(true);
+        long leaks = BufferPool.leaks();
+        leak();
+
+        for (int i = 0; i < 100 && BufferPool.leaks() == leaks; i++) {
+            System.gc();
+            Thread.sleep(10);
+            BufferPool.acquire(16).close();
+        }
+        assertEquals(leaks + 1, BufferPool.leaks());
+    }
+
+    private static void leak() {
+        BufferPool.acquire(32 * 1024).buffer().put((byte) 1);
+    }
+}
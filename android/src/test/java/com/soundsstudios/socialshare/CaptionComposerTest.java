@@ -0,0 +1,110 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.soundsstudios.socialshare.CaptionComposer.Target;
+
+import org.junit.Test;
+
+public class CaptionComposerTest {
+
+    private static final String URL = "https://example.com/a/very/long/path/that/x/shortens/to/twenty-three/chars";
+
+    @Test
+    public void composesEachPlatformLayout() {
+        assertEquals("Hello #a #b via @user " + URL,
+                CaptionComposer.twitter("Hello", new String[] { "a", "b" }, "user", URL));
+        assertEquals("Hello #fun", CaptionComposer.tiktok("Hello", new String[] { "fun" }));
+        assertEquals("Hello " + URL + " #MyApp", CaptionComposer.facebook("Hello", URL, "#MyApp"));
+        assertEquals("Hello " + URL, CaptionComposer.message(Target.WHATSAPP, "Hello", URL));
+        assertEquals("Hello\n" + URL, CaptionComposer.message(Target.TELEGRAM, "Hello", URL));
+        assertEquals("Title\nBody\n" + URL + "\nr/pics",
+                CaptionComposer.post(Target.REDDIT, "Title", "Body", URL, "pics"));
+    }
+
+    @Test
+    public void markersSurviveEmptyText() {
+        assertEquals("#a #b via @user", CaptionComposer.twitter("", new String[] { "a", "b" }, "user", ""));
+        assertEquals("via @user", CaptionComposer.twitter(null, new String[0], "user", null));
+        assertEquals("#a #b", CaptionComposer.tiktok(null, new String[] { "a", "b" }));
+        assertEquals("r/pics", CaptionComposer.post(Target.REDDIT, "", null, "", "pics"));
+        assertEquals("", CaptionComposer.message(Target.WHATSAPP, null, null));
+    }
+
+    @Test
+    public void hashtagsAreDeduplicatedIgnoringCase() {
+        assertEquals("t #Fun #Other",
+                CaptionComposer.tiktok("t", new String[] { "Fun", "#fun", " FUN ", null, "#", "Other" }));
+        assertEquals("hi #x", CaptionComposer.twitter("hi", new String[] { " #x", "x", "#X" }, "", ""));
+    }
+
+    @Test
+    public void urlsWeighTwentyThreeOnX() {
+        String text = repeat("a", 256);
+        // 256 + 1 + 23 = 280 fits even though the URL itself is much longer
+        assertEquals(text + " " + URL, CaptionComposer.twitter(text, new String[0], "", URL));
+    }
+
+    @Test
+    public void trailingHashtagsAreDroppedBeforeTextIsCut() {
+        String text = repeat("a", 270);
+        // 270 + " #one" + " #two" = 280; " #three" no longer fits
+        assertEquals(text + " #one #two",
+                CaptionComposer.twitter(text, new String[] { "one", "two", "three" }, "", ""));
+
+        String longer = repeat("a", 279);
+        assertEquals(longer, CaptionComposer.twitter(longer, new String[] { "one", "two" }, "", ""));
+    }
+
+    @Test
+    public void textIsCutWithEllipsis() {
+        // X weighs the ellipsis as 2: 254 + 2 + 1 + 23 = 280
+        String text = repeat("a", 260);
+        assertEquals(repeat("a", 254) + "… " + URL, CaptionComposer.twitter(text, new String[0], "", URL));
+
+        // CJK weighs 2 per character: 139 * 2 + 2 = 280
+        String cjk = CaptionComposer.twitter(repeat("字", 200), new String[0], "", "");
+        assertEquals(repeat("字", 139) + "…", cjk);
+    }
+
+    @Test
+    public void cutsNeverSplitSurrogatePairs() {
+        String caption = CaptionComposer.twitter(repeat("😀", 200), new String[0], "", "");
+        assertTrue(caption.endsWith("…"));
+        String kept = caption.substring(0, caption.length() - 1);
+        assertEquals(kept.length(), kept.codePointCount(0, kept.length()) * 2);
+    }
+
+    @Test
+    public void textIsDroppedWhenFixedPartsFillTheLimit() {
+        String url = "https://example.com/" + repeat("p", 1100);
+        assertEquals(url, CaptionComposer.message(Target.TELEGRAM, "Hello", url));
+    }
+
+    @Test
+    public void everyPlatformStaysWithinItsLimit() {
+        for (Target target : Target.values()) {
+            if (target == Target.SYSTEM) {
+                continue;
+            }
+            String text = repeat("b", target.limit + 100);
+            String caption = CaptionComposer.message(target, text, "https://example.com");
+            assertTrue(target + " caption too long", caption.codePointCount(0, caption.length()) <= target.limit);
+            assertTrue(target + " lost its url", caption.endsWith("https://example.com"));
+            assertTrue(target + " text not cut", caption.contains("…"));
+        }
+
+        String post = CaptionComposer.post(Target.LINKEDIN, "Title", repeat("c", 4000), URL, "");
+        assertEquals(Target.LINKEDIN.limit, post.length());
+        assertTrue(post.startsWith("Title\nccc"));
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder(value.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
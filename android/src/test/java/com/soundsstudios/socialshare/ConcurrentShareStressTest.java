@@ -0,0 +1,273 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// Fires hundreds of overlapping share() staging and coalescing operations at once.
+// The plugin itself needs a live Capacitor bridge, so the harness drives the two
+// pieces every share() goes through: StagingArea (base64 and transcoded media)
+// and ShareCoalescer (the in-flight request table).
+public class ConcurrentShareStressTest {
+
+    private static final int CALLS = 400;
+    private static final int THREADS = 32;
+
+    private File root;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("staging").toFile();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        File[] files = root.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        root.delete();
+    }
+
+    @Test
+    public void overlappingStagingNeverMixesBytes() throws Exception {
+        final StagingArea staging = new StagingArea(root);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<File>> results = new ArrayList<>();
+        final List<byte[]> payloads = new ArrayList<>();
+
+        for (int i = 0; i < CALLS; i++) {
+            final byte[] payload = payload(i);
+            payloads.add(payload);
+            final String base64 = Base64.getEncoder().encodeToString(payload);
+            results.add(executor.submit(new Callable<File>() {
+                @Override
+                public File call() throws Exception {
+                    start.await();
+                    // Same prefix and extension for every call, as the fixed-name staging used to do
+                    return staging.write(Base64.getDecoder().decode(base64), "facebook_image", "jpg");
+                }
+            }));
+        }
+        start.countDown();
+
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < CALLS; i++) {
+            File file = results.get(i).get(30, TimeUnit.SECONDS);
+            assertTrue("duplicate staging name " + file.getName(), names.add(file.getName()));
+            assertArrayEquals(payloads.get(i), Files.readAllBytes(file.toPath()));
+        }
+        assertEquals(CALLS, countFiles(""));
+        assertEquals(0, countFiles(StagingArea.PART_SUFFIX));
+    }
+
+    @Test
+    public void failedWritesLeaveNothingBehind() throws Exception {
+        final StagingArea staging = new StagingArea(root);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < CALLS; i++) {
+            final int index = i;
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    try {
+                        staging.write(index % 2 == 0 ? failingStream(payload(index)) : new ByteArrayInputStream(
+                                payload(index)), "instagram_video", "mp4", ProgressListener.NONE, 0);
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(CALLS / 2, failures.get());
+        assertEquals(CALLS / 2, countFiles(""));
+        assertEquals(0, countFiles(StagingArea.PART_SUFFIX));
+    }
+
+    @Test
+    public void purgeRemovesOnlyStaleFiles() throws Exception {
+        StagingArea staging = new StagingArea(root);
+        File stale = staging.write(payload(1), "temp", "png");
+        File fresh = staging.write(payload(2), "temp", "png");
+        assertTrue(stale.setLastModified(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+
+        assertEquals(1, staging.purge(60 * 60 * 1000));
+        assertFalse(stale.exists());
+        assertTrue(fresh.exists());
+    }
+
+    @Test
+    public void identicalConcurrentCallsShareOneLeader() throws Exception {
+        final ShareCoalescer coalescer = new ShareCoalescer();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<RecordingCall> calls = new ArrayList<>();
+        List<Future<PluginCall>> joins = new ArrayList<>();
+
+        for (int i = 0; i < CALLS; i++) {
+            final RecordingCall call = new RecordingCall(i);
+            calls.add(call);
+            joins.add(executor.submit(new Callable<PluginCall>() {
+                @Override
+                public PluginCall call() throws Exception {
+                    start.await();
+                    return coalescer.join("instagram:same-content", call, 0);
+                }
+            }));
+        }
+        start.countDown();
+
+        PluginCall leader = null;
+        for (Future<PluginCall> join : joins) {
+            PluginCall result = join.get(30, TimeUnit.SECONDS);
+            if (result != null) {
+                if (leader != null) {
+                    fail("more than one call ran the share");
+                }
+                leader = result;
+            }
+        }
+        assertTrue(leader != null);
+
+        leader.resolve();
+        for (RecordingCall call : calls) {
+            assertEquals(1, call.resolved.get());
+            assertEquals(0, call.rejected.get());
+        }
+
+        // Once finished, the same share runs again instead of replaying
+        assertTrue(coalescer.join("instagram:same-content", new RecordingCall(CALLS), 0) != null);
+    }
+
+    @Test
+    public void differentContentRunsIndependently() {
+        ShareCoalescer coalescer = new ShareCoalescer();
+        RecordingCall first = new RecordingCall(0);
+        RecordingCall second = new RecordingCall(1);
+
+        PluginCall firstLeader = coalescer.join("instagram:a", first, 0);
+        PluginCall secondLeader = coalescer.join("instagram:b", second, 0);
+        assertTrue(firstLeader != null && secondLeader != null);
+
+        firstLeader.reject("Instagram is not installed");
+        assertEquals(1, first.rejected.get());
+        assertEquals(0, second.rejected.get() + second.resolved.get());
+    }
+
+    @Test
+    public void leaderSettlesOnlyOnce() {
+        ShareCoalescer coalescer = new ShareCoalescer();
+        RecordingCall first = new RecordingCall(0);
+        RecordingCall second = new RecordingCall(1);
+
+        PluginCall leader = coalescer.join("instagram:same-content", first, 0);
+        assertTrue(coalescer.join("instagram:same-content", second, 0) == null);
+
+        leader.reject("Unable to open share target");
+        leader.resolve();
+        for (RecordingCall call : new RecordingCall[] { first, second }) {
+            assertEquals(1, call.rejected.get());
+            assertEquals(0, call.resolved.get());
+        }
+    }
+
+    private int countFiles(String suffix) {
+        int count = 0;
+        File[] files = root.listFiles();
+        for (File file : files) {
+            if (file.getName().endsWith(suffix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Distinct content per call, with the call number at the start so a mix-up is obvious
+    private static byte[] payload(int index) {
+        byte[] data = new byte[16 * 1024 + index];
+        new Random(index).nextBytes(data);
+        data[0] = (byte) (index >>> 8);
+        data[1] = (byte) index;
+        return data;
+    }
+
+    private static InputStream failingStream(final byte[] data) {
+        return new InputStream() {
+            private int position = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (position >= data.length / 2) {
+                    throw new IOException("Stream revoked");
+                }
+                return data[position++] & 0xFF;
+            }
+        };
+    }
+
+    private static class RecordingCall extends PluginCall {
+        final AtomicInteger resolved = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        RecordingCall(int index) {
+            super(null, "SocialShare", "call-" + index, "share", new JSObject());
+        }
+
+        @Override
+        public void resolve() {
+            resolved.incrementAndGet();
+        }
+
+        @Override
+        public void resolve(JSObject data) {
+            resolved.incrementAndGet();
+        }
+
+        @Override
+        public void reject(String msg, String code, Exception ex, JSObject data) {
+            rejected.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ContentFingerprintTest {
+
+    private static final int LARGE = 4 * 1024 * 1024;
+
+    @Test
+    public void sameContentSameFingerprint() throws IOException {
+        byte[] data = randomBytes(LARGE, 1);
+        assertEquals(ContentFingerprint.of(write(data)), ContentFingerprint.of(write(data)));
+    }
+
+    @Test
+    public void detectsChangesInSampledRegions() throws IOException {
+        byte[] data = randomBytes(LARGE, 2);
+        String original = ContentFingerprint.of(write(data));
+
+        byte[] head = data.clone();
+        head[10] ^= 1;
+        assertFalse(original.equals(ContentFingerprint.of(write(head))));
+
+        byte[] tail = data.clone();
+        tail[tail.length - 10] ^= 1;
+        assertFalse(original.equals(ContentFingerprint.of(write(tail))));
+
+        byte[] block = data.clone();
+        block[ContentFingerprint.EDGE_SIZE + 1] ^= 1;
+        assertFalse(original.equals(ContentFingerprint.of(write(block))));
+    }
+
+    @Test
+    public void sizeIsPartOfFingerprint() throws IOException {
+        byte[] data = randomBytes(LARGE, 3);
+        byte[] longer = new byte[data.length + 1];
+        System.arraycopy(data, 0, longer, 0, data.length);
+        assertFalse(ContentFingerprint.of(write(data)).equals(ContentFingerprint.of(write(longer))));
+    }
+
+    @Test
+    public void smallFilesAreHashedInFull() throws IOException {
+        byte[] data = randomBytes(100 * 1024, 4);
+        String original = ContentFingerprint.of(write(data));
+
+        data[data.length / 2] ^= 1;
+        assertFalse(original.equals(ContentFingerprint.of(write(data))));
+        assertFalse(original.equals(ContentFingerprint.of(write(new byte[0]))));
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static File write(byte[] data) throws IOException {
+        File file = File.createTempFile("fingerprint", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,47 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.soundsstudios.socialshare.MediaSniffer.Format;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class FormatNegotiatorTest {
+
+    @Test
+    public void opaqueImagesGoToTheFirstLossyFormat() {
+        assertEquals(Format.JPEG, FormatNegotiator.pickTarget(Arrays.asList(Format.JPEG, Format.PNG), false, Format.PNG));
+        assertEquals(Format.WEBP,
+                FormatNegotiator.pickTarget(Arrays.asList(Format.WEBP, Format.JPEG, Format.PNG), false, Format.BMP));
+        assertEquals(Format.JPEG,
+                FormatNegotiator.pickTarget(Arrays.asList(Format.JPEG, Format.WEBP, Format.PNG), false, Format.PNG));
+    }
+
+    @Test
+    public void transparentImagesSkipJpeg() {
+        assertEquals(Format.WEBP,
+                FormatNegotiator.pickTarget(Arrays.asList(Format.JPEG, Format.WEBP, Format.PNG), true, Format.PNG));
+        assertEquals(Format.PNG, FormatNegotiator.pickTarget(Arrays.asList(Format.JPEG, Format.PNG), true, Format.PNG));
+        // An unsupported source with alpha falls back to PNG
+        assertEquals(Format.PNG, FormatNegotiator.pickTarget(Arrays.asList(Format.JPEG, Format.PNG), true, Format.HEIF));
+    }
+
+    @Test
+    public void nothingEncodableGivesNull() {
+        assertNull(FormatNegotiator.pickTarget(Arrays.asList(Format.JPEG, Format.GIF), true, Format.WEBP));
+        assertNull(FormatNegotiator.pickTarget(Collections.<Format>emptyList(), false, Format.PNG));
+    }
+
+    @Test
+    public void sampleSizeKeepsTheLongestEdgeAtOrAboveTheLimit() {
+        assertEquals(1, FormatNegotiator.sampleSize(1000, 800, 1600));
+        assertEquals(1, FormatNegotiator.sampleSize(3199, 2000, 1600));
+        assertEquals(2, FormatNegotiator.sampleSize(3200, 2000, 1600));
+        assertEquals(2, FormatNegotiator.sampleSize(2000, 4000, 1920));
+        assertEquals(4, FormatNegotiator.sampleSize(12000, 9000, 2048));
+    }
+}
@@ -0,0 +1,59 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertEquals;
+
+import com.soundsstudios.socialshare.MediaSniffer.Format;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class MediaSnifferTest {
+
+    @Test
+    public void sniffsImages() {
+        assertEquals(Format.JPEG, sniff(0xFF, 0xD8, 0xFF, 0xE0));
+        assertEquals(Format.PNG, sniff(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+        assertEquals(Format.GIF, sniff("GIF89a"));
+        assertEquals(Format.WEBP, sniff("RIFF\0\0\0\0WEBPVP8 "));
+        assertEquals(Format.BMP, sniff("BM"));
+    }
+
+    @Test
+    public void sniffsIsoBrands() {
+        assertEquals(Format.HEIF, sniff("\0\0\0\u0018ftypheic"));
+        assertEquals(Format.AVIF, sniff("\0\0\0\u0018ftypavif"));
+        assertEquals(Format.MP4, sniff("\0\0\0\u0018ftypisom"));
+        assertEquals(Format.MOV, sniff("\0\0\0\u0014ftypqt  "));
+        assertEquals(Format.M4A, sniff("\0\0\0 ftypM4A "));
+    }
+
+    @Test
+    public void sniffsAudio() {
+        assertEquals(Format.MP3, sniff("ID3\u0004"));
+        assertEquals(Format.MP3, sniff(0xFF, 0xFB, 0x90, 0x00));
+        assertEquals(Format.AAC, sniff(0xFF, 0xF1, 0x50, 0x80));
+        assertEquals(Format.WAV, sniff("RIFF\0\0\0\0WAVEfmt "));
+        assertEquals(Format.OGG, sniff("OggS"));
+    }
+
+    @Test
+    public void unknownAndTruncatedData() {
+        assertEquals(Format.UNKNOWN, sniff("hello world"));
+        assertEquals(Format.UNKNOWN, sniff(0xFF));
+        assertEquals(Format.UNKNOWN, sniff(new int[0]));
+    }
+
+    private static Format sniff(String header) {
+        byte[] data = header.getBytes(StandardCharsets.ISO_8859_1);
+        return MediaSniffer.sniff(data, data.length);
+    }
+
+    private static Format sniff(int... header) {
+        byte[] data = new byte[header.length];
+        for (int i = 0; i < header.length; i++) {
+            data[i] = (byte) header[i];
+        }
+        return MediaSniffer.sniff(data, data.length);
+    }
+}
@@ -0,0 +1,63 @@
+package com.soundsstudios.socialshare;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+// JVM timing harness for the plugin's share of Capacitor bridge startup:
+// constructing SocialShare and calling load(), which is all the bridge does
+// with the plugin before the first frame. These are smoke bounds that catch
+// load() growing real work again, not device startup numbers: the cold call
+// includes JVM class loading, and the warm numbers show the steady-state cost.
+public class StartupBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 5000;
+    private static final double COLD_BUDGET_MS = 100.0;
+    private static final double BUDGET_MS = 1.0;
+
+    @Test
+    public void loadStaysWithinStartupBudget() {
+        long coldStart = System.nanoTime();
+        new SocialShare().load();
+        double coldMs = (System.nanoTime() - coldStart) / 1_000_000.0;
+        assertTrue("cold load() took " + coldMs + " ms", coldMs < COLD_BUDGET_MS);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            new SocialShare().load();
+        }
+
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            new SocialShare().load();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+
+        double medianMs = samples[ITERATIONS / 2] / 1_000_000.0;
+        double p99Ms = samples[ITERATIONS * 99 / 100] / 1_000_000.0;
+
+        assertTrue("median load() took " + medianMs + " ms", medianMs < BUDGET_MS);
+        assertTrue("p99 load() took " + p99Ms + " ms", p99Ms < BUDGET_MS);
+    }
+
+    @Test
+    public void loadDoesNotStartWarmup() {
+        final boolean[] ran = { false };
+        PluginWarmup warmup = new PluginWarmup(new Runnable() {
+            @Override
+            public void run() {
+                ran[0] = true;
+            }
+        });
+
+        warmup.scheduleAfterFirstFrame();
+
+        assertFalse(warmup.isStarted());
+        assertFalse(ran[0]);
+    }
+}
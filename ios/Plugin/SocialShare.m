@@ -2,4 +2,5 @@
 
 CAP_PLUGIN(SocialShare, "SocialShare",
     CAP_PLUGIN_METHOD(share, CAPPluginReturnPromise);
+    CAP_PLUGIN_METHOD(getPlatformCapabilities, CAPPluginReturnPromise);
 )
\ No newline at end of file
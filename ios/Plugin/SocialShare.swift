@@ -47,6 +47,38 @@ public class SocialShare: CAPPlugin {
         }
     }
 
+    // Install state for every known platform via its URL scheme (schemes must be in LSApplicationQueriesSchemes).
+    // iOS has no equivalent of Android's version codes or share intent queries, so an installed app is
+    // assumed to accept the share sheet, and only Instagram accepts stories.
+    @objc func getPlatformCapabilities(_ call: CAPPluginCall) {
+        let schemes: [(String, String)] = [
+            ("instagram", "instagram://"),
+            ("instagram-stories", "instagram-stories://"),
+            ("facebook", "fb://"),
+            ("twitter", "twitter://"),
+            ("tiktok", "tiktok://"),
+            ("whatsapp", "whatsapp://"),
+            ("linkedin", "linkedin://"),
+            ("snapchat", "snapchat://"),
+            ("telegram", "tg://"),
+            ("reddit", "reddit://"),
+        ]
+
+        DispatchQueue.main.async {
+            var platforms: [String: Any] = [:]
+            for (platform, scheme) in schemes {
+                let installed = URL(string: scheme).map { UIApplication.shared.canOpenURL($0) } ?? false
+                platforms[platform] = [
+                    "installed": installed,
+                    "supportsSend": installed,
+                    "supportsSendMultiple": installed,
+                    "supportsStories": installed && platform.hasPrefix("instagram"),
+                ]
+            }
+            call.resolve(["platforms": platforms])
+        }
+    }
+
     // Native system sharing using iOS share sheet
     private func shareNatively(call: CAPPluginCall) {
         let title = call.getString("title") ?? ""
@@ -1,3 +1,5 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
 export enum SharePlatform {
     NATIVE = 'native', // Uses system's native share sheet (all available apps)
     INSTAGRAM_STORIES = 'instagram-stories',
@@ -89,6 +91,9 @@ export interface InstagramShareOptions {
     duration?: number; // Optional: Duration in seconds for the video (if not specified, uses remaining audio duration)
     videoStartTime?: number; // Optional: Start time in seconds for the video background (defaults to 0, only used when videoPath is provided)
     saveToDevice?: boolean; // Optional: Save created content to device before sharing (default: false)
+    background?: boolean; // Optional: Android only - run video creation/gallery export in a foreground service so it survives app switches (default: false)
+    splitVideo?: boolean; // Optional: Android only - split videos longer than segmentDuration into keyframe-aligned parts shared together (default: true for Stories)
+    segmentDuration?: number; // Optional: Android only - longest part in seconds when splitVideo is on (default: 60)
     textOverlays?: TextOverlay[]; // Optional: Array of text overlays to add to the video/image
     imageOverlays?: ImageOverlay[]; // Optional: Array of image overlays to add to the video/image
     timeBasedTextOverlays?: TimeBasedTextOverlay[]; // Optional: Array of time-based text overlays that appear/disappear at specific times
@@ -116,6 +121,8 @@ export interface TwitterShareOptions {
     videoData?: string; // Optional: Video as base64 string (alternative to videoPath)
     hashtags?: string[]; // Optional: Array of hashtags (without #)
     via?: string; // Optional: Twitter username to attribute (without @)
+    convertGif?: boolean; // Optional: Android only - send an animated GIF in imagePath as a much smaller MP4 clip (default: false)
+    background?: boolean; // Optional: Android only - run GIF conversion in a foreground service so it survives app switches (default: false)
 }
 
 export interface TikTokShareOptions {
@@ -139,6 +146,10 @@ export interface WhatsAppShareOptions {
     videoData?: string; // Optional: Video as base64 string (alternative to videoPath)
     url?: string; // Optional: URL to share
     phoneNumber?: string; // Optional: Specific phone number to send to
+    convertGif?: boolean; // Optional: Android only - send an animated GIF in imagePath as a much smaller MP4 clip (default: false)
+    splitVideo?: boolean; // Optional: Android only - split long videos into Status-length parts shared together (default: false)
+    segmentDuration?: number; // Optional: Android only - longest part in seconds when splitVideo is on (default: 30)
+    background?: boolean; // Optional: Android only - run video splitting/GIF conversion in a foreground service so it survives app switches (default: false)
 }
 
 export interface LinkedInShareOptions {
@@ -159,6 +170,9 @@ export interface SnapchatShareOptions {
     stickerImage?: string; // Optional: Sticker overlay file path
     stickerImageData?: string; // Optional: Sticker image as base64 string (alternative to stickerImage)
     attachmentUrl?: string; // Optional: URL attachment
+    splitVideo?: boolean; // Optional: Android only - split videos longer than segmentDuration into keyframe-aligned parts shared together (default: true)
+    segmentDuration?: number; // Optional: Android only - longest part in seconds when splitVideo is on (default: 60)
+    background?: boolean; // Optional: Android only - run video splitting in a foreground service so it survives app switches (default: false)
 }
 
 export interface TelegramShareOptions {
@@ -169,6 +183,8 @@ export interface TelegramShareOptions {
     imageData?: string; // Optional: Image as base64 string (alternative to imagePath)
     videoPath?: string; // Optional: Video file path
     videoData?: string; // Optional: Video as base64 string (alternative to videoPath)
+    convertGif?: boolean; // Optional: Android only - send an animated GIF in imagePath as a much smaller MP4 clip (default: false)
+    background?: boolean; // Optional: Android only - run GIF conversion in a foreground service so it survives app switches (default: false)
 }
 
 export interface RedditShareOptions {
@@ -191,6 +207,35 @@ export type ShareOptions =
     | TelegramShareOptions
     | RedditShareOptions;
 
+export interface ExportProgressEvent {
+    task: string; // Human readable name of the running job (e.g. "Saving video to Gallery")
+    completed: number; // Units (bytes) processed so far
+    total: number; // Total units (bytes) for the job
+    percent: number; // Completion percentage (0-100)
+}
+
+export interface PlatformCapability {
+    installed: boolean; // Whether the platform's app is installed
+    packageName?: string; // Android only: package that handles the platform
+    versionCode?: number; // Android only: installed app version code
+    versionName?: string; // Android only: installed app version name
+    supportsSend: boolean; // Accepts single item shares (ACTION_SEND)
+    supportsSendMultiple: boolean; // Accepts multi item shares (ACTION_SEND_MULTIPLE)
+    supportsStories: boolean; // Accepts Instagram-style ADD_TO_STORY shares
+}
+
+export interface PlatformCapabilitiesOptions {
+    refresh?: boolean; // Optional: Ignore the cached result and probe again (default: false)
+}
+
+export interface PlatformCapabilitiesResult {
+    platforms: { [platform: string]: PlatformCapability }; // Keyed by SharePlatform value
+}
+
 export interface SocialSharePlugin {
     share(options: ShareOptions): Promise<void>;
+    // Probe every known platform at once instead of waiting for a share to be rejected
+    getPlatformCapabilities(options?: PlatformCapabilitiesOptions): Promise<PlatformCapabilitiesResult>;
+    // Android only: progress of video creation and gallery export
+    addListener(eventName: 'exportProgress', listenerFunc: (event: ExportProgressEvent) => void): Promise<PluginListenerHandle>;
 }
\ No newline at end of file
@@ -12,7 +12,8 @@ import {
     LinkedInShareOptions,
     SnapchatShareOptions,
     TelegramShareOptions,
-    RedditShareOptions
+    RedditShareOptions,
+    PlatformCapabilitiesResult
 } from './definitions';
 
 interface WebShareData {
@@ -76,6 +77,23 @@ export class SocialShareWeb extends WebPlugin implements SocialSharePlugin {
         }
     }
 
+    // Browsers cannot see installed apps, so every platform reports as unavailable and share() uses web fallbacks
+    async getPlatformCapabilities(): Promise<PlatformCapabilitiesResult> {
+        const platforms: PlatformCapabilitiesResult['platforms'] = {};
+        for (const platform of Object.values(SharePlatform)) {
+            if (platform === SharePlatform.NATIVE) {
+                continue;
+            }
+            platforms[platform] = {
+                installed: false,
+                supportsSend: false,
+                supportsSendMultiple: false,
+                supportsStories: false,
+            };
+        }
+        return { platforms };
+    }
+
     // Helper function to convert base64 to File/Blob
     private base64ToFile(base64: string, filename: string, mimeType: string): File {
         const byteCharacters = atob(base64.split(',')[1] || base64);
@@ -11,6 +11,7 @@ import {
     TelegramShareOptions,
     RedditShareOptions,
     ShareOptions,
+    ExportProgressEvent,
 } from '../src/definitions';
 
 describe('SharePlatform Enum', () => {
@@ -137,6 +138,31 @@ describe('Instagram Share Options', () => {
         expect(instagramOptions.backgroundColor).toBe('#FF0000');
         expect(instagramOptions.saveToDevice).toBe(true);
     });
+
+    it('should accept background export option', () => {
+        const options: InstagramShareOptions = {
+            platform: SharePlatform.INSTAGRAM_STORIES,
+            videoPath: '/path/to/recording.mp4',
+            saveToDevice: true,
+            background: true,
+        };
+
+        expect(options.background).toBe(true);
+    });
+});
+
+describe('ExportProgressEvent', () => {
+    it('should describe export progress', () => {
+        const event: ExportProgressEvent = {
+            task: 'Saving video to Gallery',
+            completed: 512,
+            total: 1024,
+            percent: 50,
+        };
+
+        expect(event.percent).toBe(50);
+        expect(event.completed / event.total).toBe(0.5);
+    });
 });
 
 describe('Facebook Share Options', () => {
@@ -248,6 +274,39 @@ describe('WhatsApp Share Options', () => {
         expect(options.imageData).toBe('base64imagedata');
         expect(options.videoData).toBe('base64videodata');
     });
+
+    it('should accept video splitting options', () => {
+        const options: WhatsAppShareOptions = {
+            platform: SharePlatform.WHATSAPP,
+            videoPath: '/path/to/video.mp4',
+            splitVideo: true,
+            segmentDuration: 30,
+        };
+
+        expect(options.splitVideo).toBe(true);
+        expect(options.segmentDuration).toBe(30);
+    });
+
+    it('should accept GIF conversion option', () => {
+        const options: WhatsAppShareOptions = {
+            platform: SharePlatform.WHATSAPP,
+            imagePath: '/path/to/animation.gif',
+            convertGif: true,
+        };
+
+        expect(options.convertGif).toBe(true);
+    });
+
+    it('should accept background export option', () => {
+        const options: WhatsAppShareOptions = {
+            platform: SharePlatform.WHATSAPP,
+            videoPath: '/path/to/two-minute-clip.mp4',
+            splitVideo: true,
+            background: true,
+        };
+
+        expect(options.background).toBe(true);
+    });
 });
 
 describe('LinkedIn Share Options', () => {
@@ -300,6 +359,16 @@ describe('Snapchat Share Options', () => {
         expect(options.videoData).toBe('base64videodata');
         expect(options.stickerImageData).toBe('base64stickerdata');
     });
+
+    it('should allow opting out of video splitting', () => {
+        const options: SnapchatShareOptions = {
+            platform: SharePlatform.SNAPCHAT,
+            videoPath: '/path/to/video.mp4',
+            splitVideo: false,
+        };
+
+        expect(options.splitVideo).toBe(false);
+    });
 });
 
 describe('Telegram Share Options', () => {
@@ -601,4 +601,15 @@ describe('SocialShareWeb', () => {
             expect(mockWindowOpen).toHaveBeenCalled();
         });
     });
+
+    describe('Platform Capabilities', () => {
+        it('should report every platform as not installed on web', async () => {
+            const result = await socialShareWeb.getPlatformCapabilities();
+
+            expect(result.platforms[SharePlatform.INSTAGRAM].installed).toBe(false);
+            expect(result.platforms[SharePlatform.TIKTOK].supportsSend).toBe(false);
+            expect(result.platforms[SharePlatform.NATIVE]).toBeUndefined();
+            expect(Object.keys(result.platforms)).toHaveLength(Object.values(SharePlatform).length - 1);
+        });
+    });
 }); 
\ No newline at end of file